@@ -0,0 +1,98 @@
+package framework.benchmarks;
+
+import framework.AppiumDriverFacade;
+import framework.Instrumentation;
+import io.appium.java_client.MobileElement;
+import io.appium.java_client.android.AndroidDriver;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.By;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to measure the AppiumDriverFacade reads against the stand-in server, live on the device
+ * against the page source snapshot, on screens with more and more elements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppiumFacadeBenchmark {
+
+    private static final By TEXT_VIEWS = By.xpath("//android.widget.TextView");
+
+    @Param({"0", "1"})
+    public long latencyMillis;
+
+    @Param({"10", "100", "1000"})
+    public int rows;
+
+    private StandInPage page;
+
+    @Setup(Level.Trial)
+    public void startSession(){
+        page = new StandInPage(rows);
+        String[] texts = new String[rows];
+        for (int i = 0; i < rows; i++) texts[i] = "row " + i;
+        page.getServer().addElements("xpath", "//android.widget.TextView", texts);
+        page.getServer().setDefaultLatency(latencyMillis);
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setCapability("platformName", "Android");
+        capabilities.setCapability("automationName", "UiAutomator2");
+        AppiumDriverFacade.getDriverPool().lease("stand-in", () -> Instrumentation.instrument(
+                new AndroidDriver<MobileElement>(page.getServer().getUrl(), capabilities)));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSession(){
+        AppiumDriverFacade.getDriverPool().discard();
+        page.close();
+    }
+
+    /**
+     * This benchmark is used as the baseline of the snapshot: one findElements call and one call per text.
+     */
+    @Benchmark
+    public void readTextsLive(Blackhole blackhole){
+        for (MobileElement element: AppiumDriverFacade.getDriver().findElements(TEXT_VIEWS))
+            blackhole.consume(AppiumDriverFacade.getText(element));
+    }
+
+    /**
+     * The snapshot is discarded first, so every read pays the page source call and its parsing.
+     */
+    @Benchmark
+    public List<String> readTextsFromSnapshot(){
+        AppiumDriverFacade.invalidateScreenSnapshot();
+        return AppiumDriverFacade.getScreenSnapshot().getTexts(TEXT_VIEWS);
+    }
+
+    /**
+     * The probes find the element on the device, one call, and read its visibility, one more.
+     */
+    @Benchmark
+    public boolean isElementVisible(){
+        AppiumDriverFacade.invalidateScreenSnapshot();
+        return AppiumDriverFacade.isElementVisible(TEXT_VIEWS);
+    }
+
+    @Benchmark
+    public boolean isElementPresentMissing(){
+        AppiumDriverFacade.invalidateScreenSnapshot();
+        return AppiumDriverFacade.isElementPresent(By.xpath("//android.widget.Button"));
+    }
+
+    /**
+     * Once the caller took a snapshot, the probes are answered from it without any call.
+     */
+    @Benchmark
+    public boolean isElementVisibleOnSnapshot(){
+        AppiumDriverFacade.getScreenSnapshot();
+        return AppiumDriverFacade.isElementVisible(TEXT_VIEWS);
+    }
+}
@@ -0,0 +1,73 @@
+package framework.benchmarks;
+
+import framework.DriverPool;
+import framework.WebDriverFacade;
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to measure how many scenarios per minute the driver pool serves as it grows, when eight
+ * threads lease warm sessions, find an element and return them, against a session started for every scenario.
+ * The threads beyond the pool size wait for a session, like the scenarios of a run with fewer browsers than
+ * workers. Other thread counts can be given with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class DriverPoolBenchmark {
+
+    private static final By ROW = By.cssSelector("#rows td");
+
+    @Param({"1"})
+    public long latencyMillis;
+
+    @Param({"1", "2", "4", "8"})
+    public int poolSize;
+
+    private StandInPage page;
+    private DriverPool<WebDriver> pool;
+
+    @Setup(Level.Trial)
+    public void startServer(){
+        page = new StandInPage(10);
+        page.getServer().setDefaultLatency(latencyMillis);
+        pool = WebDriverFacade.getDriverPool();
+        pool.setMaxSessions(poolSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer(){
+        pool.shutDownIdle();
+        page.close();
+    }
+
+    @Benchmark
+    public Object leaseWarmSession(){
+        pool.lease("stand-in", page::newSession);
+        try {
+            return WebDriverFacade.getElements(ROW);
+        } finally {
+            pool.release();
+        }
+    }
+
+    /**
+     * This benchmark is used as the baseline of the pool: every scenario starts and quits its own session.
+     */
+    @Benchmark
+    public Object newSessionPerScenario(){
+        pool.lease("stand-in:cold", page::newSession);
+        try {
+            return WebDriverFacade.getElements(ROW);
+        } finally {
+            pool.discard();
+        }
+    }
+}
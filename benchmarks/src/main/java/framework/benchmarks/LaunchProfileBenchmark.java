@@ -0,0 +1,130 @@
+package framework.benchmarks;
+
+import framework.LaunchProfile;
+import framework.WebDriverFacade;
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.WebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to compare the launch profiles: the time a real browser takes to start a session, and the
+ * resident memory of the driver server and browser processes once it is started. It needs the browser installed and
+ * its driver in the resources folder, like the scenarios, so it runs from the project folder:
+ * java -jar benchmarks/target/benchmarks.jar LaunchProfile. The memory is read from /proc, so it is only reported
+ * on Linux.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LaunchProfileBenchmark {
+
+    @Param({"chrome", "firefox"})
+    public String browser;
+
+    @Param({"STANDARD", "HEADLESS", "LOW_OVERHEAD"})
+    public String profile;
+
+    private LaunchProfile launchProfile;
+    private WebDriver driver;
+    private final List<Long> residentKilobytes = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void checkDriver(){
+        launchProfile = LaunchProfile.named(profile);
+        String driverName = browser.equals("chrome") ? "chromedriver.exe" : "geckodriver.exe";
+        File driverFile = new File("resources" + File.separator + driverName);
+        if (!driverFile.isFile())
+            throw new IllegalStateException(String.format("The driver %s was not found, run the benchmark from " +
+                    "the project folder", driverFile.getAbsolutePath()));
+    }
+
+    @Benchmark
+    public WebDriver launch(){
+        driver = browser.equals("chrome")
+                ? WebDriverFacade.chromeDriverInitialize(null, launchProfile)
+                : WebDriverFacade.firefoxDriverInitialize(launchProfile);
+        return driver;
+    }
+
+    @TearDown(Level.Invocation)
+    public void quit(){
+        if (driver == null) return;
+        try {
+            long kilobytes = childResidentKilobytes();
+            if (kilobytes > 0) residentKilobytes.add(kilobytes);
+        } finally {
+            driver.quit();
+            driver = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report(){
+        if (residentKilobytes.isEmpty()) {
+            System.out.printf("%n%s %s: resident memory not available on this system%n", browser, profile);
+            return;
+        }
+        long total = 0;
+        long max = 0;
+        for (long kilobytes: residentKilobytes) {
+            total += kilobytes;
+            max = Math.max(max, kilobytes);
+        }
+        System.out.printf("%n%s %s: resident memory per launch %.1f MB average, %.1f MB max, %d launches%n",
+                browser, profile, total / 1024.0 / residentKilobytes.size(), max / 1024.0, residentKilobytes.size());
+    }
+
+    /**
+     * This method is used to add the resident memory of every process started by this JVM, the driver server and
+     * the browser processes under it. Returns 0 when /proc can't be read.
+     */
+    private static long childResidentKilobytes(){
+        File[] processes = new File("/proc").listFiles((dir, name) -> name.matches("\\d+"));
+        if (processes == null) return 0;
+        Map<String, List<String>> children = new HashMap<>();
+        for (File process: processes) {
+            String stat = read(new File(process, "stat"));
+            if (stat == null) continue;
+            // The command name can contain spaces and parentheses, the fields after it are the state and the parent
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            children.computeIfAbsent(fields[1], k -> new ArrayList<>()).add(process.getName());
+        }
+        String self = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        long kilobytes = 0;
+        Deque<String> pending = new ArrayDeque<>(children.getOrDefault(self, new ArrayList<>()));
+        while (!pending.isEmpty()) {
+            String pid = pending.pop();
+            pending.addAll(children.getOrDefault(pid, new ArrayList<>()));
+            String status = read(new File("/proc/" + pid + "/status"));
+            if (status == null) continue;
+            for (String line: status.split("\n"))
+                if (line.startsWith("VmRSS:")) kilobytes += Long.parseLong(line.replaceAll("\\D", ""));
+        }
+        return kilobytes;
+    }
+
+    private static String read(File file){
+        try {
+            return new String(Files.readAllBytes(Paths.get(file.getPath())), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // The process ended since the folder was listed
+            return null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package framework.benchmarks;
+
+import framework.Instrumentation;
+import framework.StandInWebDriverServer;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.util.*;
+
+/**
+ * This class is used to start a stand-in WebDriver server with a page of rows and to answer the scripts of the
+ * framework the way a browser would, from the elements of the page: the text lookups, the bulk reads, the element
+ * probes and the post condition checks.
+ */
+public class StandInPage implements AutoCloseable {
+
+    public static final By ROWS = By.cssSelector("#rows td");
+    public static final By MISSING = By.cssSelector("#missing");
+
+    private final StandInWebDriverServer server = new StandInWebDriverServer();
+
+    /**
+     * This method is used to start the server with the given amount of rows, with the texts "row 0", "row 1"...
+     */
+    public StandInPage(int rows){
+        String[] texts = new String[rows];
+        for (int i = 0; i < rows; i++) texts[i] = "row " + i;
+        server.addElements("css selector", "#rows td", texts);
+        server.setScriptHandler(this::answerScript);
+        StringBuilder source = new StringBuilder("<hierarchy>");
+        for (int i = 0; i < rows; i++) {
+            source.append(String.format("<android.widget.TextView text=\"row %d\" resource-id=\"row\" " +
+                    "displayed=\"true\" enabled=\"true\" bounds=\"[0,%d][100,%d]\"/>", i, 20 * i, 20 * i + 20));
+        }
+        server.setPageSource(source.append("</hierarchy>").toString());
+    }
+
+    public StandInWebDriverServer getServer() { return server; }
+
+    /**
+     * This method is used to open a new instrumented session on the server, like the facades do.
+     */
+    public WebDriver newSession(){
+        return Instrumentation.instrument(new RemoteWebDriver(server.getUrl(), new DesiredCapabilities()));
+    }
+
+    private Object answerScript(String script, List<?> arguments){
+        if (script.contains("__frameworkLastMutation")) return script.contains("return") ? 60_000L : null;
+        if (arguments.size() < 2 || !(arguments.get(0) instanceof String)) return null;
+        String using = toW3cStrategy((String) arguments.get(0));
+        String value = (String) arguments.get(1);
+        List<Map<String, String>> references = server.getElementReferences(using, value);
+        List<String> texts = server.getElementTexts(using, value);
+        Object filter = arguments.size() > 2 ? arguments.get(2) : null;
+        if (filter instanceof List) return readElements(texts);
+        int index = select(texts, filter);
+        if (script.contains("!element.disabled")) return index < 0 ? null : Arrays.asList(true, true);
+        return index < 0 ? null : references.get(index);
+    }
+
+    private static int select(List<String> texts, Object filter){
+        if (filter instanceof Number) {
+            int index = ((Number) filter).intValue();
+            return index < texts.size() ? index : -1;
+        }
+        if (!(filter instanceof String)) return texts.isEmpty() ? -1 : 0;
+        for (int i = 0; i < texts.size(); i++) if (texts.get(i).contains((String) filter)) return i;
+        return -1;
+    }
+
+    private static List<List<Object>> readElements(List<String> texts){
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            rows.add(Arrays.asList("td", texts.get(i), false, false, true, 0, 20 * i, 100, 20,
+                    new HashMap<String, String>(), null));
+        }
+        return rows;
+    }
+
+    private static String toW3cStrategy(String using){
+        switch (using) {
+            case "css":
+                return "css selector";
+            case "xpath":
+                return "xpath";
+            default:
+                throw new IllegalArgumentException(String.format(
+                        "The stand-in page doesn't resolve %s locators", using));
+        }
+    }
+
+    @Override
+    public void close(){
+        server.close();
+    }
+}
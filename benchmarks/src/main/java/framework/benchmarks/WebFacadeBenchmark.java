@@ -0,0 +1,125 @@
+package framework.benchmarks;
+
+import framework.ElementProbe;
+import framework.ScreenshotWriter;
+import framework.WebDriverFacade;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to measure the WebDriverFacade operations against the stand-in server: element lookups,
+ * text lookups, bulk reads, probes, waits and screenshots. Every command of the server takes the given latency,
+ * so the results show how the round trips of each operation add up on a slow grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebFacadeBenchmark {
+
+    @Param({"0", "1"})
+    public long latencyMillis;
+
+    @Param({"10", "100", "1000"})
+    public int rows;
+
+    private StandInPage page;
+    private Path screenshotDirectory;
+
+    @Setup(Level.Trial)
+    public void startSession(){
+        page = new StandInPage(rows);
+        page.getServer().setDefaultLatency(latencyMillis);
+        WebDriverFacade.getDriverPool().lease("stand-in", page::newSession);
+        try {
+            screenshotDirectory = Files.createTempDirectory("benchmark-screenshots");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeSession(){
+        ScreenshotWriter.flush();
+        WebDriverFacade.getDriverPool().discard();
+        page.close();
+    }
+
+    //region Element Lookups
+
+    @Benchmark
+    public WebElement getElementUncached(){
+        WebDriverFacade.getElementCache().invalidate();
+        return WebDriverFacade.getElement(StandInPage.ROWS);
+    }
+
+    @Benchmark
+    public WebElement getElementCached(){
+        return WebDriverFacade.getElement(StandInPage.ROWS);
+    }
+
+    /**
+     * The last row is the worst case of the text lookup, every text is compared before it matches.
+     */
+    @Benchmark
+    public WebElement getElementByText(){
+        WebDriverFacade.getElementCache().invalidate();
+        return WebDriverFacade.getElement(StandInPage.ROWS, "row " + (rows - 1));
+    }
+
+    //endregion
+
+    //region Bulk Reads
+
+    @Benchmark
+    public List<String> getElementsText(){
+        return WebDriverFacade.getElementsText(StandInPage.ROWS);
+    }
+
+    /**
+     * This benchmark is used as the baseline of getElementsText: one findElements call and one call per text.
+     */
+    @Benchmark
+    public void getElementsTextOneByOne(Blackhole blackhole){
+        for (WebElement element: WebDriverFacade.getElements(StandInPage.ROWS)) blackhole.consume(element.getText());
+    }
+
+    //endregion
+
+    //region Probes and Waits
+
+    @Benchmark
+    public boolean isElementPresentMissing(){
+        return WebDriverFacade.isElementPresent(StandInPage.MISSING);
+    }
+
+    @Benchmark
+    public boolean waitUntilPresent(){
+        return WebDriverFacade.waitUntil(d -> ElementProbe.probe(d, StandInPage.ROWS).isPresent(), 5);
+    }
+
+    /**
+     * The click waits for the default post condition, the DOM quiet one, which the stand-in page answers as quiet.
+     */
+    @Benchmark
+    public void clickAndWait(){
+        WebDriverFacade.click(StandInPage.ROWS, 5);
+    }
+
+    //endregion
+
+    @Benchmark
+    public void takeScreenshot(){
+        WebDriverFacade.takeScreenshot("screenshot", screenshotDirectory + "/");
+    }
+}
@@ -0,0 +1,115 @@
+package framework;
+
+import org.junit.Test;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class is used to check the local ports given to the devices, the retirement of the failing ones and the
+ * closing of their idle sessions.
+ */
+public class DeviceSchedulerTest {
+
+    private static final String SERVER = "http://127.0.0.1:4723/wd/hub";
+
+    @Test
+    public void devicesWithoutPortGetFreeDistinctPorts() throws Exception {
+        DeviceDescriptor fixed = device("fixed").withLocalPort(8201);
+        try (ServerSocket busy = occupyFirstFreePort(8200)) {
+            List<DeviceDescriptor> devices = Arrays.asList(device("a"), fixed, device("b"), device("c"));
+            Set<Integer> ports = new HashSet<>();
+            for (DeviceDescriptor device: new DeviceScheduler(devices).getDevices()) {
+                if (device.getUdid().equals("fixed")) {
+                    assertEquals(8201, device.getLocalPort());
+                    continue;
+                }
+                assertTrue(device + " got the port " + device.getLocalPort(), device.getLocalPort() >= 8200);
+                assertNotEquals(8201, device.getLocalPort());
+                assertTrue(isFree(device.getLocalPort()));
+                assertTrue("The port " + device.getLocalPort() + " was given twice", ports.add(device.getLocalPort()));
+            }
+            assertEquals(3, ports.size());
+            assertFalse(ports.contains(busy.getLocalPort()));
+        }
+    }
+
+    @Test
+    public void devicesAreRetiredAfterMaxFailuresInARow(){
+        DeviceScheduler scheduler = new DeviceScheduler(Arrays.asList(device("a"), device("b")));
+        scheduler.setMaxFailures(2);
+        DeviceDescriptor failing = scheduler.lease(device -> device.getUdid().equals("a"), 1);
+        assertFalse(scheduler.reportFailure(failing));
+        assertTrue(scheduler.getRetiredDevices().isEmpty());
+        assertEquals(2, scheduler.idleCount());
+
+        failing = scheduler.lease(device -> device.getUdid().equals("a"), 1);
+        assertTrue(scheduler.reportFailure(failing));
+        assertEquals(Collections.singleton(failing), scheduler.getRetiredDevices());
+        assertEquals(1, scheduler.idleCount());
+        try {
+            scheduler.lease(device -> device.getUdid().equals("a"), 1);
+            fail("A retired device was leased");
+        } catch (IllegalStateException e) {
+            // There isn't any healthy device left for the requirement
+        }
+        assertEquals("b", scheduler.lease(1).getUdid());
+    }
+
+    @Test
+    public void releaseResetsTheFailuresInARow(){
+        DeviceScheduler scheduler = new DeviceScheduler(Collections.singletonList(device("a")));
+        scheduler.setMaxFailures(2);
+        scheduler.reportFailure(scheduler.lease(1));
+        scheduler.release(scheduler.lease(1));
+        scheduler.reportFailure(scheduler.lease(1));
+        assertTrue(scheduler.getRetiredDevices().isEmpty());
+        assertEquals(1, scheduler.idleCount());
+    }
+
+    @Test
+    public void discardIdleClosesOnlyTheSessionsOfTheKey(){
+        StandInWebDriverServer server = new StandInWebDriverServer();
+        DriverPool<RemoteWebDriver> pool = new DriverPool<>(4);
+        try {
+            pool.prepare("retired", () -> new RemoteWebDriver(server.getUrl(), new DesiredCapabilities()));
+            pool.prepare("retired", () -> new RemoteWebDriver(server.getUrl(), new DesiredCapabilities()));
+            pool.prepare("healthy", () -> new RemoteWebDriver(server.getUrl(), new DesiredCapabilities()));
+            pool.discardIdle("retired");
+            assertEquals(0, pool.idleCount("retired"));
+            assertEquals(1, pool.idleCount("healthy"));
+            assertEquals(1, pool.size());
+        } finally {
+            pool.shutDownIdle();
+            server.close();
+        }
+    }
+
+    private static DeviceDescriptor device(String udid){
+        return new DeviceDescriptor("android", "Pixel", "9", SERVER, udid);
+    }
+
+    private static ServerSocket occupyFirstFreePort(int port) throws IOException {
+        for (; ; port++) {
+            try {
+                return new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+            } catch (IOException e) {
+                // The port is already taken, the scheduler skips it too
+            }
+        }
+    }
+
+    private static boolean isFree(int port){
+        try (ServerSocket socket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package framework;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class is used to check that the blocked URLs of a resource policy reach the driver server and that the
+ * pages are counted, against the stand-in server.
+ */
+public class ResourceInterceptorTest {
+
+    private StandInWebDriverServer server;
+    private RemoteWebDriver driver;
+
+    @Before
+    public void startSession(){
+        server = new StandInWebDriverServer();
+        driver = new RemoteWebDriver(server.getUrl(), new DesiredCapabilities());
+    }
+
+    @After
+    public void stopSession(){
+        driver.quit();
+        server.close();
+    }
+
+    @Test
+    public void installSendsTheBlockedPatterns(){
+        ResourcePolicy policy = ResourcePolicy.blocking(ResourcePolicy.ResourceType.FONT)
+                .withBlockedUrls("*ads.example.com*");
+        ResourceInterceptor.install(driver, server.getUrl(), policy);
+
+        assertEquals(1, server.getCommandCount("cdp:Network.enable"));
+        assertEquals(1, server.getCommandCount("cdp:Network.setBlockedURLs"));
+        List<String> urls = new ArrayList<>();
+        JsonArray sent = server.getDevToolsParameters("Network.setBlockedURLs").getAsJsonArray("urls");
+        for (JsonElement url: sent) urls.add(url.getAsString());
+        assertEquals(policy.getBlockedPatterns(), urls);
+        assertTrue(urls.contains("*.woff2"));
+        assertTrue(urls.contains("*.woff2?*"));
+        assertTrue(urls.contains("*ads.example.com*"));
+        assertSame(policy, ResourceInterceptor.forDriver(driver).getPolicy());
+    }
+
+    @Test
+    public void emptyPolicyIsNotInstalled(){
+        ResourceInterceptor.install(driver, server.getUrl(), ResourcePolicy.none());
+
+        assertEquals(0, server.getCommandCount("cdp:Network.enable"));
+        assertEquals(0, server.getCommandCount("cdp:Network.setBlockedURLs"));
+        assertNull(ResourceInterceptor.forDriver(driver));
+    }
+
+    @Test
+    public void pagesAreCountedWithOneScript(){
+        server.setScriptHandler((script, arguments) -> Arrays.asList("http://stand-in/page", 3, 5, 2048));
+        ResourcePolicy policy = ResourcePolicy.blocking(ResourcePolicy.ResourceType.IMAGE);
+        ResourceInterceptor.install(driver, server.getUrl(), policy);
+        ResourceInterceptor interceptor = ResourceInterceptor.forDriver(driver);
+        interceptor.recordPage(driver);
+        interceptor.recordPage(driver);
+
+        ResourceInterceptor.PageStats stats = interceptor.getStats().get("http://stand-in/page");
+        assertEquals(2, stats.getLoads());
+        assertEquals(6, stats.getBlocked());
+        assertEquals(10, stats.getServed());
+        assertEquals(4096, stats.getBytes());
+        assertEquals(2, server.getCommandCount("executeScript"));
+    }
+}
@@ -0,0 +1,62 @@
+package framework;
+
+import io.appium.java_client.MobileBy;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * This class is used to check the snapshot lookups on a page source read from UiAutomator2.
+ */
+public class ScreenSnapshotTest {
+
+    private static ScreenSnapshot snapshot;
+
+    @BeforeClass
+    public static void parsePageSource() throws IOException, URISyntaxException {
+        Path source = Paths.get(ScreenSnapshotTest.class.getResource("uiautomator2-login.xml").toURI());
+        snapshot = ScreenSnapshot.parse(new String(Files.readAllBytes(source), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void bareIdMatchesTheFullResourceId(){
+        ScreenSnapshot.Node login = snapshot.find(By.id("login"));
+        assertNotNull(login);
+        assertEquals("com.example.shop:id/login", login.getAttribute("resource-id"));
+        assertEquals(Collections.singletonList("Welcome back"), snapshot.getTexts(By.id("title")));
+        assertTrue(snapshot.isVisible(By.id("email")));
+    }
+
+    @Test
+    public void bareIdDoesNotMatchOtherIdsEndingTheSame(){
+        assertEquals(1, snapshot.findAll(By.id("login")).size());
+        assertTrue(snapshot.findAll(By.id("password")).isEmpty());
+    }
+
+    @Test
+    public void fullIdStillMatches(){
+        assertEquals("Email", snapshot.find(By.id("com.example.shop:id/email")).getText());
+        assertNotNull(snapshot.find(By.id("android:id/navigationBarBackground")));
+    }
+
+    @Test
+    public void nodesReadTheUiAutomator2Attributes(){
+        ScreenSnapshot.Node login = snapshot.find(MobileBy.AccessibilityId("Log in"));
+        assertEquals("LOG IN", login.getText());
+        assertTrue(login.isDisplayed());
+        assertFalse(login.isEnabled());
+        assertEquals(new Rectangle(48, 516, 126, 984), login.getRect());
+        assertEquals("android.widget.Button", snapshot.find(By.className("android.widget.Button")).getClassName());
+    }
+}
@@ -0,0 +1,126 @@
+package framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class is used to remember which build of the app is installed on every device, by the SHA-256 hash of its
+ * binary, so the app is only installed again when the build changes. The hashes are kept in a properties file
+ * shared by every run of the host.
+ */
+public class AppInstallRegistry {
+
+    private static final Path REGISTRY_FILE =
+            Paths.get(System.getProperty("java.io.tmpdir"), "automation-framework-installed-apps.properties");
+    private static final Map<Path, String[]> hashCache = new ConcurrentHashMap<>();
+
+    /**
+     * This method is used to check if the given app binary, an .apk file or an .app directory, is the last one
+     * installed on the device.
+     */
+    public static synchronized boolean isInstalled(String deviceKey, Path app){
+        return hash(app).equals(load().getProperty(deviceKey));
+    }
+
+    /**
+     * This method is used to record that the app binary was installed on the device.
+     */
+    public static synchronized void recordInstalled(String deviceKey, Path app){
+        Properties installedApps = load();
+        installedApps.setProperty(deviceKey, hash(app));
+        store(installedApps);
+    }
+
+    /**
+     * This method is used to forget the app installed on the device, so the next session installs it again.
+     */
+    public static synchronized void forget(String deviceKey){
+        Properties installedApps = load();
+        if (installedApps.remove(deviceKey) == null) return;
+        store(installedApps);
+    }
+
+    /**
+     * This method is used to return the SHA-256 of a file, or of every file of a directory in path order. The
+     * hash is computed again only when the binary was modified.
+     */
+    public static String hash(Path app){
+        try {
+            String modified = lastModified(app).toString();
+            String[] cached = hashCache.get(app);
+            if (cached != null && cached[0].equals(modified)) return cached[1];
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            for (Path file: files(app)) {
+                digest.update(app.relativize(file).toString().getBytes());
+                try (InputStream input = Files.newInputStream(file)) {
+                    for (int read = input.read(buffer); read > 0; read = input.read(buffer)) digest.update(buffer, 0, read);
+                }
+            }
+            StringBuilder hash = new StringBuilder();
+            for (byte b: digest.digest()) hash.append(String.format("%02x", b));
+            hashCache.put(app, new String[]{modified, hash.toString()});
+            return hash.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The app %s couldn't be read", app), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Path> files(Path app) throws IOException {
+        if (!Files.isDirectory(app)) return Collections.singletonList(app);
+        try (Stream<Path> files = Files.walk(app)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static FileTime lastModified(Path app) throws IOException {
+        FileTime newest = Files.getLastModifiedTime(app);
+        for (Path file: files(app)) {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.compareTo(newest) > 0) newest = modified;
+        }
+        return newest;
+    }
+
+    /**
+     * The registry is written on a temporary file and moved over the previous one, so a JVM reading it at the
+     * same time never sees it half written.
+     */
+    private static void store(Properties installedApps){
+        try {
+            Path temporary = Files.createTempFile(REGISTRY_FILE.getParent(), "installed-apps", ".tmp");
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                installedApps.store(output, "SHA-256 of the app installed on every device");
+            }
+            Files.move(temporary, REGISTRY_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The installed apps couldn't be written on %s", REGISTRY_FILE), e);
+        }
+    }
+
+    private static Properties load(){
+        Properties installedApps = new Properties();
+        if (!Files.exists(REGISTRY_FILE)) return installedApps;
+        try (InputStream input = Files.newInputStream(REGISTRY_FILE)) {
+            installedApps.load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The installed apps couldn't be read from %s", REGISTRY_FILE), e);
+        }
+        return installedApps;
+    }
+}
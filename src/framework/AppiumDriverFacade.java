@@ -5,24 +5,49 @@ import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.AndroidKeyCode;
 import io.appium.java_client.ios.IOSDriver;
 import org.openqa.selenium.*;
+import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
 
 import static java.io.File.separator;
 
 public class AppiumDriverFacade {
 
-    public static AppiumDriver<MobileElement> appiumDriverFacade;
+    private static final DriverPool<AppiumDriver<MobileElement>> driverPool =
+            new DriverPool<>(Runtime.getRuntime().availableProcessors());
+    private static volatile PostCondition postCondition = PostCondition.delay(250);
+    private static final Logger logger = Logger.getLogger(AppiumDriverFacade.class.getName());
+    private static volatile PollingStrategy pollingStrategy = PollingStrategy.exponential(100, 1000);
+    private static final ThreadLocal<DeviceLease> leasedDevice = new ThreadLocal<>();
+    private static final StartupMetrics appStartupMetrics = new StartupMetrics();
+    private static final ThreadLocal<ScreenSnapshot> screenSnapshot = new ThreadLocal<>();
+    private static volatile AppResetMode appResetMode = AppResetMode.REINSTALL;
+
+    /**
+     * REINSTALL installs the app on every new session. FAST installs it only when the build changes and, between
+     * tests, closes the app, clears its data and launches it again.
+     */
+    public enum AppResetMode { REINSTALL, FAST }
 
     //region Driver Definition
 
     /**
-     * This method is used to initialize the driver.
+     * This method is used to initialize the driver. The session is bound to the current thread and reused from
+     * the driver pool when another thread released a session for the same device and server.
      */
     public static void createDriver(String deviceType, String deviceModel, String deviceOSVersion, String serverIp){
         final String URL_STRING = serverIp;
@@ -32,26 +57,294 @@ public class AppiumDriverFacade {
         } catch (MalformedURLException e) {
             e.printStackTrace();
         }
-        deviceType = deviceType.toUpperCase();
-        switch (deviceType){
-            case "ANDROID":
-                androidDriverInitialize(url, deviceModel, deviceOSVersion);
-                break;
-            case "IOS":
-                iosDriverInitialize(url, deviceModel, deviceOSVersion);
-                break;
-            case "SAUCELABS":
-                saucelabsInitialize(url, deviceModel, deviceOSVersion);
-                break;
-            default:
-                throw new IllegalArgumentException(String.format("The selected driver %s is not supported", deviceType));
+        final URL serverUrl = url;
+        final String type = deviceType.toUpperCase();
+        String sessionKey = String.format("%s:%s:%s:%s", type, deviceModel, deviceOSVersion, serverIp);
+        driverPool.lease(sessionKey, () -> {
+            AppiumDriver<MobileElement> driver;
+            switch (type){
+                case "ANDROID":
+                    driver = androidDriverInitialize(serverUrl, deviceModel, deviceOSVersion);
+                    break;
+                case "IOS":
+                    driver = iosDriverInitialize(serverUrl, deviceModel, deviceOSVersion);
+                    break;
+                case "SAUCELABS":
+                    driver = saucelabsInitialize(serverUrl, deviceModel, deviceOSVersion);
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format("The selected driver %s is not supported", type));
+            }
+            return Instrumentation.instrument(driver);
+        });
+    }
+
+    /**
+     * This method is used to lease a device from the scheduler, waiting up to the given seconds until one is free,
+     * and to bind its session to the current thread. The device goes back to the scheduler with releaseDriver or
+     * shutDown.
+     */
+    public static DeviceDescriptor createDriver(DeviceScheduler scheduler, int secondsToWait){
+        return createDriver(scheduler, device -> true, secondsToWait);
+    }
+
+    /**
+     * This method is used to lease a device that meets the requirement, like a device type or OS version, and to
+     * bind its session to the current thread.
+     */
+    public static DeviceDescriptor createDriver(DeviceScheduler scheduler, Predicate<DeviceDescriptor> requirement,
+                                                int secondsToWait){
+        if (driverPool.hasCurrent())
+            throw new IllegalStateException(String.format(
+                    "The thread %s already has a driver session bound", Thread.currentThread().getName()));
+        ensureCapacity(scheduler);
+        DeviceDescriptor device = scheduler.lease(requirement, secondsToWait);
+        try {
+            driverPool.lease(device.getKey(), () -> Instrumentation.instrument(driverInitialize(device)));
+        } catch (RuntimeException e) {
+            reportFailure(scheduler, device);
+            throw e;
         }
+        leasedDevice.set(new DeviceLease(scheduler, device));
+        return device;
+    }
+
+    /**
+     * This method is used to start a session on every device of the scheduler at the same time and leave them
+     * idle in the driver pool. Devices whose session can't be started are reported as failed. Returns the amount
+     * of sessions that were started.
+     */
+    public static int prewarmDevices(DeviceScheduler scheduler){
+        ensureCapacity(scheduler);
+        List<DeviceDescriptor> devices = scheduler.getDevices();
+        devices.removeAll(scheduler.getRetiredDevices());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, devices.size()));
+        List<Future<Boolean>> startups = new ArrayList<>();
+        for (DeviceDescriptor device: devices)
+            startups.add(executor.submit(() -> driverPool.prepare(device.getKey(),
+                    () -> Instrumentation.instrument(driverInitialize(device)))));
+        executor.shutdown();
+        int started = 0;
+        for (int i = 0; i < startups.size(); i++) {
+            try {
+                if (startups.get(i).get()) started++;
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+                reportFailure(scheduler, devices.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The thread was interrupted while starting the device sessions", e);
+            }
+        }
+        return started;
+    }
+
+    private static void ensureCapacity(DeviceScheduler scheduler){
+        synchronized (driverPool) {
+            int devices = scheduler.getDevices().size();
+            if (driverPool.getMaxSessions() < devices) driverPool.setMaxSessions(devices);
+        }
+    }
+
+    /**
+     * This method is used to return the device leased by the current thread, or null when the session was
+     * created without a scheduler.
+     */
+    public static DeviceDescriptor getDevice(){
+        DeviceLease lease = leasedDevice.get();
+        return lease == null ? null : lease.device;
+    }
+
+    /**
+     * This method is used to return the driver session bound to the current thread.
+     */
+    public static AppiumDriver<MobileElement> getDriver(){
+        return driverPool.current();
+    }
+
+    /**
+     * This method is used to return the driver session bound to the current thread, like the public field it
+     * replaces, which was shared by every thread.
+     * @deprecated use getDriver
+     */
+    @Deprecated
+    public static AppiumDriver<MobileElement> appiumDriverFacade(){
+        return getDriver();
+    }
+
+    /**
+     * This method is used to return the driver pool shared by every thread.
+     */
+    public static DriverPool<AppiumDriver<MobileElement>> getDriverPool(){
+        return driverPool;
+    }
+
+    /**
+     * This method is used to set the condition that ends the wait after an action. The seconds to wait of every
+     * action are only an upper bound, the action returns as soon as the post condition holds. By default the
+     * actions wait a quarter of a second, as UiAutomator2 and XCUITest already wait for the app to be idle;
+     * PostCondition.pageSourceStable can be set for drivers that don't.
+     */
+    public static void setPostCondition(PostCondition condition){
+        postCondition = condition;
+    }
+
+    /**
+     * This method is used to set how often the post condition is checked while waiting, on the sessions whose
+     * wait factory doesn't have a polling of its own.
+     */
+    public static void setPollingStrategy(PollingStrategy strategy){
+        pollingStrategy = strategy;
+    }
+
+    /**
+     * This method is used to wait up to the given seconds until the condition holds. Returns whether it was met.
+     */
+    public static boolean waitUntil(Function<WebDriver, ?> condition, int secondsToWait){
+        return getWaitFactory().meets("AppiumDriverFacade.waitUntil", condition, secondsToWait);
+    }
+
+    /**
+     * This method is used to return the wait factory of the current driver session, to set its timeout, polling
+     * and ignored exceptions and to read how long its conditions waited.
+     */
+    public static WaitFactory getWaitFactory(){
+        return WaitFactory.forDriver(getDriver());
+    }
+
+    /**
+     * This method is used to set the implicit wait of the current driver session. The element probes turn it off
+     * while they run, so negative checks don't wait for it.
+     */
+    public static void setImplicitWait(int seconds){
+        ElementProbe.setImplicitWait(getDriver(), TimeUnit.SECONDS.toMillis(seconds));
+    }
+
+    /**
+     * This method is used to run an action and wait up to the given seconds until the post condition holds. The
+     * time of the action is recorded under the given facade method name.
+     */
+    private static void performAndWait(String method, MobileElement target, int secondsToWait, Runnable action){
+        long start = System.nanoTime();
+        screenSnapshot.remove();
+        try {
+            if (secondsToWait <= 0) {
+                action.run();
+                return;
+            }
+            AppiumDriver<MobileElement> driver = getDriver();
+            Function<WebDriver, ?> condition = postCondition.prepare(driver, target);
+            action.run();
+            long waitStart = System.nanoTime();
+            Object met = WaitFactory.forDriver(driver).poll(method, condition, TimeUnit.SECONDS.toNanos(secondsToWait),
+                    pollingStrategy, e -> e instanceof WebDriverException, new int[1]);
+            Instrumentation.recordPostConditionWait(waitStart);
+            if (met == null && postCondition != PostCondition.PAUSE)
+                logger.warning(String.format("The post condition of %s wasn't met in %d seconds", method,
+                        secondsToWait));
+        } finally {
+            Instrumentation.recordFacadeMethod(method, start);
+        }
+    }
+
+    /**
+     * This method is used to set how the app is reset between tests.
+     */
+    public static void setAppResetMode(AppResetMode mode){
+        appResetMode = mode;
+    }
+
+    /**
+     * This method is used to return how long the app takes to be ready on every reset mode: REINSTALL and
+     * FAST:INSTALL are sessions that installed the app, FAST:SESSION are new sessions that reused the installed
+     * app and FAST:RESET are resets between tests of the same session.
+     */
+    public static StartupMetrics getAppStartupMetrics(){
+        return appStartupMetrics;
+    }
+
+    /**
+     * This method is used to return the driver to the pool so another test can reuse the session. When the app
+     * can't be reset the session is closed instead, so the next test doesn't get the data of this one.
+     */
+    public static void releaseDriver(){
+        screenSnapshot.remove();
+        try {
+            boolean reset = true;
+            if (appResetMode == AppResetMode.FAST) {
+                try {
+                    resetApp(getDriver());
+                } catch (WebDriverException e) {
+                    e.printStackTrace();
+                    reset = false;
+                }
+            }
+            if (reset) driverPool.release();
+            else driverPool.discard();
+        } finally {
+            releaseDevice(false);
+            TestDurations.finish();
+        }
+    }
+
+    /**
+     * This method is used to close the entire driver.
+     */
+    public static void shutDown(){
+        try {
+            driverPool.discard();
+        } finally {
+            releaseDevice(false);
+            TestDurations.finish();
+        }
+    }
+
+    /**
+     * This method is used to close a session that stopped answering and to report its device as failed, so it
+     * is retired after too many failures.
+     */
+    public static void shutDownUnhealthy(){
+        try {
+            driverPool.discard();
+        } catch (WebDriverException e) {
+            e.printStackTrace();
+        } finally {
+            releaseDevice(true);
+        }
+    }
+
+    private static void releaseDevice(boolean failed){
+        DeviceLease lease = leasedDevice.get();
+        if (lease == null) return;
+        leasedDevice.remove();
+        if (failed) reportFailure(lease.scheduler, lease.device);
+        else lease.scheduler.release(lease.device);
+    }
+
+    /**
+     * This method is used to report a failed device and, when it is retired, to close its idle sessions, which
+     * would never be leased again.
+     */
+    private static void reportFailure(DeviceScheduler scheduler, DeviceDescriptor device){
+        if (scheduler.reportFailure(device)) driverPool.discardIdle(device.getKey());
+    }
+
+    /**
+     * This method is used to close every session waiting on the driver pool.
+     */
+    public static void shutDownIdleDrivers(){
+        driverPool.shutDownIdle();
     }
 
     /**
      * This method is used to initialize the IOS Mobile driver.
      */
-    public static void iosDriverInitialize(URL url, String deviceModel, String deviceOSVersion){
+    public static AppiumDriver<MobileElement> iosDriverInitialize(URL url, String deviceModel, String deviceOSVersion){
+        return startApp(String.format("IOS:%s:%s:%s", deviceModel, deviceOSVersion, url),
+                iosCapabilities(deviceModel, deviceOSVersion), capabilities -> new IOSDriver<>(url, capabilities));
+    }
+
+    private static DesiredCapabilities iosCapabilities(String deviceModel, String deviceOSVersion){
         DesiredCapabilities capabilities = new DesiredCapabilities();
         capabilities.setCapability("deviceName", deviceModel);
         capabilities.setCapability("newCommandTimeout", 120);
@@ -63,13 +356,18 @@ public class AppiumDriverFacade {
         capabilities.setCapability("bundleId", "com.thenetfirm.mobile.wapicon.WapIcon.adam");
         File srcApp= new File ("app" + separator +"ADAM_FULL.app");
         capabilities.setCapability("app", srcApp.getAbsolutePath());
-        appiumDriverFacade = new IOSDriver<>(url, capabilities);
+        return capabilities;
     }
 
     /**
      * This method is used to initialize the IOS Mobile driver.
      */
-    public static void androidDriverInitialize(URL url, String deviceModel, String deviceOSVersion){
+    public static AppiumDriver<MobileElement> androidDriverInitialize(URL url, String deviceModel, String deviceOSVersion){
+        return startApp(String.format("ANDROID:%s:%s:%s", deviceModel, deviceOSVersion, url),
+                androidCapabilities(deviceModel, deviceOSVersion), capabilities -> new AndroidDriver<>(url, capabilities));
+    }
+
+    private static DesiredCapabilities androidCapabilities(String deviceModel, String deviceOSVersion){
         DesiredCapabilities capabilities = new DesiredCapabilities();
         File  srcApp= new File ("app" + separator +"APPCBK-pre-release.apk");
         capabilities.setCapability("platformName", "Android");
@@ -84,13 +382,96 @@ public class AppiumDriverFacade {
         capabilities.setCapability("appWaitActivity",  "*");
         capabilities.setCapability("autoDismissAlerts", true);
         //capabilities.setCapability("noReset", true);
-        appiumDriverFacade = new AndroidDriver<>(url, capabilities);
+        return capabilities;
+    }
+
+    /**
+     * This method is used to initialize the driver of a device, on its own device and local port.
+     */
+    public static AppiumDriver<MobileElement> driverInitialize(DeviceDescriptor device){
+        DesiredCapabilities capabilities;
+        switch (device.getType()){
+            case "ANDROID":
+                capabilities = androidCapabilities(device.getModel(), device.getOsVersion());
+                if (device.getLocalPort() > 0) capabilities.setCapability("systemPort", device.getLocalPort());
+                break;
+            case "IOS":
+                capabilities = iosCapabilities(device.getModel(), device.getOsVersion());
+                if (device.getLocalPort() > 0) capabilities.setCapability("wdaLocalPort", device.getLocalPort());
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("The selected driver %s is not supported", device.getType()));
+        }
+        if (device.getUdid() != null) capabilities.setCapability("udid", device.getUdid());
+        return startApp(device.getKey(), capabilities, deviceCapabilities -> device.getType().equals("IOS")
+                ? new IOSDriver<>(device.getUrl(), deviceCapabilities)
+                : new AndroidDriver<>(device.getUrl(), deviceCapabilities));
+    }
+
+    /**
+     * This method is used to start a session following the app reset mode. On FAST mode the app is installed
+     * only when its hash differs from the last one installed on the device, otherwise the installed app is reused
+     * with its data cleared. The install doesn't use fullReset, which would also uninstall the app when the
+     * session ends and leave the registry recording an app that is no longer on the device.
+     */
+    private static AppiumDriver<MobileElement> startApp(String deviceKey, DesiredCapabilities capabilities,
+            Function<DesiredCapabilities, AppiumDriver<MobileElement>> driverFactory){
+        long start = System.nanoTime();
+        if (appResetMode == AppResetMode.REINSTALL) {
+            AppiumDriver<MobileElement> driver = driverFactory.apply(capabilities);
+            appStartupMetrics.recordStartup("REINSTALL", System.nanoTime() - start);
+            return driver;
+        }
+        Path app = Paths.get((String) capabilities.getCapability("app"));
+        boolean install = !AppInstallRegistry.isInstalled(deviceKey, app);
+        capabilities.setCapability("noReset", !install);
+        capabilities.setCapability("fullReset", false);
+        // The same version code would be kept on Android, but the build changed
+        if (install) capabilities.setCapability("enforceAppInstall", true);
+        AppiumDriver<MobileElement> driver = driverFactory.apply(capabilities);
+        if (install) {
+            AppInstallRegistry.recordInstalled(deviceKey, app);
+        } else {
+            clearAppData(driver);
+        }
+        appStartupMetrics.recordStartup(install ? "FAST:INSTALL" : "FAST:SESSION", System.nanoTime() - start);
+        return driver;
+    }
+
+    /**
+     * This method is used to close the app, clear its data and launch it again without installing it.
+     */
+    private static void resetApp(AppiumDriver<MobileElement> driver){
+        long start = System.nanoTime();
+        clearAppData(driver);
+        appStartupMetrics.recordStartup("FAST:RESET", System.nanoTime() - start);
+    }
+
+    /**
+     * Android clears the app data with pm clear, which needs the Appium server started with relaxed security.
+     * The package is the one of the session capabilities, read before the app is closed: once closed, the
+     * current package is the launcher. iOS can't clear the data of an installed app, so the app is only restarted.
+     */
+    private static void clearAppData(AppiumDriver<MobileElement> driver){
+        String appPackage = null;
+        if (driver instanceof AndroidDriver) {
+            Object capability = driver.getCapabilities().getCapability("appPackage");
+            appPackage = capability != null ? capability.toString() : ((AndroidDriver) driver).getCurrentPackage();
+        }
+        driver.closeApp();
+        if (appPackage != null) {
+            Map<String, Object> shell = new HashMap<>();
+            shell.put("command", "pm");
+            shell.put("args", Arrays.asList("clear", appPackage));
+            driver.executeScript("mobile: shell", shell);
+        }
+        driver.launchApp();
     }
 
     /**
      * This method is used to initialize the IOS Mobile driver.
      */
-    public static void saucelabsInitialize(URL url, String deviceModel, String deviceOSVersion){
+    public static AppiumDriver<MobileElement> saucelabsInitialize(URL url, String deviceModel, String deviceOSVersion){
         DesiredCapabilities capabilities = new DesiredCapabilities();
         capabilities.setCapability("testobject_api_key", "DF0B0E0B3C5243D1B69687A34CDD3074");
         capabilities.setCapability("platformVersion", deviceOSVersion); // Optional
@@ -100,13 +481,45 @@ public class AppiumDriverFacade {
         capabilities.setCapability("autoDismissAlerts", true);
         capabilities.setCapability("autoGrantPermissions", true);
         capabilities.setCapability("autoAcceptAlerts", true);
-        appiumDriverFacade = new AndroidDriver<>(url, capabilities);
+        return new AndroidDriver<>(url, capabilities);
     }
 
     //endregion
 
+    private static class DeviceLease {
+
+        private final DeviceScheduler scheduler;
+        private final DeviceDescriptor device;
+
+        private DeviceLease(DeviceScheduler scheduler, DeviceDescriptor device){
+            this.scheduler = scheduler;
+            this.device = device;
+        }
+    }
+
     //region Driver Get Methods
 
+    /**
+     * This method is used to return a snapshot of the current screen, read with a single page source call. Its
+     * lookups, texts and visibility checks run locally. The snapshot is kept until an action of the facade
+     * changes the screen; actions performed directly on the driver must call invalidateScreenSnapshot.
+     */
+    public static ScreenSnapshot getScreenSnapshot(){
+        ScreenSnapshot snapshot = screenSnapshot.get();
+        if (snapshot == null) {
+            snapshot = ScreenSnapshot.capture(getDriver());
+            screenSnapshot.set(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * This method is used to discard the snapshot of the screen, so the next one reads the screen again.
+     */
+    public static void invalidateScreenSnapshot(){
+        screenSnapshot.remove();
+    }
+
     public static MobileElement getElementByText(List<MobileElement> elements, String elementText){
         for (MobileElement element: elements) {
             if(element.getText().contains(elementText)){ return element; }
@@ -115,6 +528,32 @@ public class AppiumDriverFacade {
                     String.format("There couldn't be found any element with the following text: %s", elementText));
     }
 
+    /**
+     * This method is used to return the first element whose text contains the element text. The device compares
+     * the texts, with a UiSelector on Android and a predicate string on iOS, so the lookup takes a single round trip.
+     */
+    public static MobileElement getElementByText(String elementText){
+        try {
+            return getDriver().findElement(byText(elementText));
+        } catch (NoSuchElementException e) {
+            throw new IllegalArgumentException(
+                    String.format("There couldn't be found any element with the following text: %s", elementText));
+        }
+    }
+
+    /**
+     * This method is used to return the locator of the elements whose text contains the element text.
+     */
+    public static By byText(String elementText){
+        if (getDriver() instanceof IOSDriver) {
+            String text = elementText.replace("\\", "\\\\").replace("'", "\\'");
+            return MobileBy.iOSNsPredicateString(String.format(
+                    "label CONTAINS '%s' OR value CONTAINS '%s' OR name CONTAINS '%s'", text, text, text));
+        }
+        String text = elementText.replace("\\", "\\\\").replace("\"", "\\\"");
+        return MobileBy.AndroidUIAutomator(String.format("new UiSelector().textContains(\"%s\")", text));
+    }
+
     /**
      * This method is used to return the text of the element base on his locator.
      */
@@ -147,128 +586,187 @@ public class AppiumDriverFacade {
     public static int getElementByAxis(MobileElement element, String axis){
         switch (axis.toUpperCase()){
             case "Y":
-                return element.getLocation().y;
+                return element.getRect().y;
             case "X":
-                return element.getLocation().x;
+                return element.getRect().x;
             default:
                 throw new IllegalArgumentException(String.format("The axis value %s is not supported", axis));
         }
     }
 
     public static Dimension getElementSize(MobileElement element){
-        return element.getSize();
+        return element.getRect().getDimension();
     }
 
     public static Point getElementCenterPoint(MobileElement element){
-        return element.getCenter();
+        Rectangle rect = element.getRect();
+        return new Point(rect.x + rect.width / 2, rect.y + rect.height / 2);
+    }
+
+    /**
+     * This method is used to return the position, size and visibility of an element together with the screen
+     * size, with a single round trip: the visibility is worked out from the rect against the screen, whose size
+     * is read once per session.
+     */
+    public static ElementGeometry getElementGeometry(MobileElement element){
+        return ElementGeometry.of(getDriver(), element.getRect());
+    }
+
+    /**
+     * This method is used to return the geometry of the first element of the locator from the screen snapshot,
+     * without a round trip per element. Returns null when there isn't any.
+     */
+    public static ElementGeometry getElementGeometry(By locator){
+        ScreenSnapshot.Node node = getScreenSnapshot().find(locator);
+        return node == null ? null : ElementGeometry.of(getDriver(), node.getRect(), node.isDisplayed());
+    }
+
+    /**
+     * This method is used to check if an element is displayed and at least part of it is on the screen.
+     */
+    public static boolean isElementOnTheScreen(MobileElement element){
+        try {
+            return getElementGeometry(element).isInViewport();
+        } catch (StaleElementReferenceException e) {
+            return false;
+        }
     }
 
     //endregion
 
     //region Driver Touch Methods
 
+    /**
+     * This method is used to queue several gestures and send them to the device in a single call.
+     */
+    public static GestureBuilder gestures(){
+        screenSnapshot.remove();
+        return new GestureBuilder(getDriver());
+    }
+
     /**
      * This method is used to tap on a mobile element base on the locator
      */
     public static void tap(MobileElement element){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.tap(element).perform();
+        gestures().tap(element).perform();
     }
 
     /**
      * This method is used to tap on a mobile element base on the locator and the index
      */
     public static void tap(List<MobileElement> elements, int index){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.tap(elements.get(index)).perform();
+        gestures().tap(elements.get(index)).perform();
     }
 
     /**
-     * This method is used to tap on a mobile element base on the locator and the element text
+     * This method is used to tap on a mobile element base on the locator and the element text. The elements aren't
+     * read: the device finds the first element of the screen whose text contains the element text, in a single round
+     * trip.
+     * @deprecated use tap(String)
      */
+    @Deprecated
     public static void tap(List<MobileElement> elements, String elementText){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.tap(getElementByText(elements, elementText)).perform();
+        tap(elementText);
+    }
+
+    /**
+     * This method is used to tap on the first mobile element whose text contains the element text
+     */
+    public static void tap(String elementText){
+        gestures().tap(getElementByText(elementText)).perform();
     }
 
     /**
      * This method is used to tap on a mobile element point base on the locator
      */
     public static void tapByPoint(MobileElement element, int xAxis, int yAxis){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.tap(element.getLocation().x + xAxis, element.getLocation().y + yAxis).perform();
+        gestures().tap(element, xAxis, yAxis).perform();
     }
 
     /**
      * This method is used to tap on a mobile element point base on the locator and the index
      */
     public static void tapByPoint(MobileElement element, int index, int xAxis, int yAxis){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.tap(element.getLocation().x + xAxis, element.getLocation().y + yAxis).perform();
+        gestures().tap(element, xAxis, yAxis).perform();
     }
 
     /**
-     * This method is used to tap on a mobile element point base on the locator and the element text
+     * This method is used to tap on a mobile element point base on the locator and the element text. The elements
+     * aren't read: the device finds the first element of the screen whose text contains the element text, in a
+     * single round trip.
+     * @deprecated use tapByPoint(String, int, int)
      */
+    @Deprecated
     public static void tapByPoint(List<MobileElement> elements, String elementText, int xAxis, int yAxis){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        MobileElement element = getElementByText(elements, elementText);
-        touchAction.tap(element.getLocation().x + xAxis, element.getLocation().y + yAxis).perform();
+        tapByPoint(elementText, xAxis, yAxis);
+    }
+
+    /**
+     * This method is used to tap on a point of the first mobile element whose text contains the element text
+     */
+    public static void tapByPoint(String elementText, int xAxis, int yAxis){
+        gestures().tap(getElementByText(elementText), xAxis, yAxis).perform();
     }
 
     /**
      * This method is used to long press on a mobile element point base on the locator
      */
     public static void longPress(MobileElement element){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.longPress(element).perform();
+        gestures().longPress(element).perform();
     }
 
     /**
      * This method is used to long press on a mobile element point base on the locator and the index
      */
     public static void longPress(List<MobileElement> elements, int index){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.longPress(elements.get(index)).perform();
+        gestures().longPress(elements.get(index)).perform();
     }
 
     /**
-     * This method is used to long press on a mobile element point base on the locator and the element text
+     * This method is used to long press on a mobile element point base on the locator and the element text. The
+     * elements aren't read: the device finds the first element of the screen whose text contains the element text,
+     * in a single round trip.
+     * @deprecated use longPress(String)
      */
+    @Deprecated
     public static void longPress(List<MobileElement> elements, String elementText){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.longPress(getElementByText(elements, elementText)).perform();
+        longPress(elementText);
+    }
+
+    /**
+     * This method is used to long press on the first mobile element whose text contains the element text
+     */
+    public static void longPress(String elementText){
+        gestures().longPress(getElementByText(elementText)).perform();
     }
 
     /**
      * This method is used to drag and drop a mobile element
      */
     public static void mobileDragAndDrop(MobileElement dragElementlements, MobileElement dropElements){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.longPress(dragElementlements).moveTo(dropElements).release().perform();
+        gestures().dragAndDrop(dragElementlements, dropElements).perform();
     }
 
     /**
      * This method is used to swipe a mobile element
      */
     public static void swipe(MobileElement firstElement, MobileElement swipeToElement){
-        TouchAction touchAction = new TouchAction(appiumDriverFacade);
-        touchAction.press(firstElement)
-                .waitAction(Duration.ofSeconds(2)).moveTo(swipeToElement).release().perform();
+        gestures().swipe(firstElement, swipeToElement, Duration.ofMillis(500)).perform();
     }
 
+    /**
+     * This method is used to press a point and move to another one in the given milliseconds. When the end point
+     * is above the screen the scroll is split in swipes of the start height, sent in a single call.
+     */
     public static void scroll( Integer xStart, Integer yStart, Integer xEnd, Integer yEnd, long duration){
-        if(yEnd<0){
-            while(yEnd < 0){
-                scroll(xStart,yStart,xEnd,0,duration);
-                yEnd = yEnd + 900;
-            }
+        if (yEnd < 0 && yStart <= 0)
+            throw new IllegalArgumentException("The scroll must start below the top of the screen to go upwards");
+        GestureBuilder gestures = gestures();
+        while (yEnd < 0) {
+            gestures.swipe(xStart, yStart, xEnd, 0, Duration.ofMillis(duration));
+            yEnd = yEnd + yStart;
         }
-        new TouchAction(appiumDriverFacade).press(xStart,yStart)
-                .waitAction(Duration.ofMillis(duration))
-                .moveTo(xEnd,yEnd)
-                .release().
-                perform();
+        gestures.swipe(xStart, yStart, xEnd, yEnd, Duration.ofMillis(duration)).perform();
     }
 
     public static void vScroll(Integer xStart, Integer yStart,  Integer yEnd){
@@ -280,9 +778,34 @@ public class AppiumDriverFacade {
 
     }
 
+    /**
+     * This method is used to return a scroll engine for the current session, to configure the direction, the
+     * scrollable container or the fling before scrolling.
+     */
+    public static ScrollEngine scroller(){
+        screenSnapshot.remove();
+        return new ScrollEngine(getDriver());
+    }
+
+    /**
+     * This method is used to scroll down until an element of the locator is visible and to return it.
+     */
+    public static MobileElement scrollToElement(By locator){
+        return scroller().scrollTo(locator);
+    }
+
+    /**
+     * This method is used to scroll down until an element with the text is visible. Android scrolls on the device
+     * with UiScrollable, iOS uses the scroll engine.
+     */
     public static void scrollToElementByText(String text)
     {
-        appiumDriverFacade.findElement(MobileBy.AndroidUIAutomator(
+        screenSnapshot.remove();
+        if (getDriver() instanceof IOSDriver) {
+            scrollToElement(byText(text));
+            return;
+        }
+        getDriver().findElement(MobileBy.AndroidUIAutomator(
                 "new UiScrollable(new UiSelector().scrollable(true).instance(0)).scrollIntoView" +
                         "(new UiSelector().textContains(\"" + text + "\"))"));
     }
@@ -295,22 +818,22 @@ public class AppiumDriverFacade {
      * This method is used to write on an element from locator.
      */
     public static void write(MobileElement element, String text, int secondsToWait){
-        element.sendKeys(text);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("AppiumDriverFacade.write", element, secondsToWait, () -> element.sendKeys(text));
     }
 
     /**
      * This method is used to write on an element from locator and element index.
      */
     public static void write(List<MobileElement> elements, int index, String text, int secondsToWait){
-        elements.get(index).sendKeys(text);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        MobileElement element = elements.get(index);
+        performAndWait("AppiumDriverFacade.write", element, secondsToWait, () -> element.sendKeys(text));
     }
 
     /**
      * This method is used to clean the text on an element from locator.
      */
     public static void clean(MobileElement element){
+        screenSnapshot.remove();
         element.clear();
     }
 
@@ -318,6 +841,7 @@ public class AppiumDriverFacade {
      * This method is used to clean the text on an element from locator and element index.
      */
     public static void clean(List<MobileElement> elements, int index){
+        screenSnapshot.remove();
         elements.get(index).clear();
     }
 
@@ -337,41 +861,63 @@ public class AppiumDriverFacade {
         write(elements, index, text, secondsToWait);
     }
 
+    /**
+     * This method is used to rotate the screen to the given orientation. The screen size kept for the element
+     * geometries is read again after the rotation.
+     */
+    public static void rotate(ScreenOrientation orientation, int secondsToWait){
+        AppiumDriver<MobileElement> driver = getDriver();
+        try {
+            performAndWait("AppiumDriverFacade.rotate", null, secondsToWait, () -> driver.rotate(orientation));
+        } finally {
+            ElementGeometry.invalidateScreenSize(driver);
+        }
+    }
+
     /**
      * This method is used to click on the element at the given locator
      */
     public static void click(MobileElement element, int secondsToWait){
-        element.click();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("AppiumDriverFacade.click", element, secondsToWait, element::click);
     }
 
     /**
      * This method is used to click on the element at the given locator and element index.
      */
     public static void click(List<MobileElement> elements, int index, int secondsToWait){
-        elements.get(index).click();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        MobileElement element = elements.get(index);
+        performAndWait("AppiumDriverFacade.click", element, secondsToWait, element::click);
     }
 
     /**
-     * This method is used to click on the element at the given locator and element text.
+     * This method is used to click on the element at the given locator and element text. The elements aren't read:
+     * the device finds the first element of the screen whose text contains the element text, in a single round trip.
+     * @deprecated use click(String, int)
      */
+    @Deprecated
     public static void click(List<MobileElement> elements, String elementText, int secondsToWait){
-        MobileElement element = getElementByText(elements, elementText);
-        element.click();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        click(elementText, secondsToWait);
+    }
+
+    /**
+     * This method is used to click on the first element whose text contains the element text.
+     */
+    public static void click(String elementText, int secondsToWait){
+        MobileElement element = getElementByText(elementText);
+        performAndWait("AppiumDriverFacade.click", element, secondsToWait, element::click);
     }
 
     /**
-     * This method is used to take a screenshot.
+     * This method is used to take a screenshot. The file is written on the background by the screenshot writer.
      */
     public static void takeScreenshot(String screenshotName, String saveDirectory){
-        File screenshot = (appiumDriverFacade).getScreenshotAs(OutputType.FILE);
-        File picture = new File(saveDirectory + screenshotName + ".png");
-        if(picture.exists()){
-            picture.delete();
+        long start = System.nanoTime();
+        try {
+            byte[] screenshot = getDriver().getScreenshotAs(OutputType.BYTES);
+            ScreenshotWriter.submit(screenshot, Paths.get(saveDirectory + screenshotName));
+        } finally {
+            Instrumentation.recordFacadeMethod("AppiumDriverFacade.takeScreenshot", start);
         }
-        screenshot.renameTo(picture);
     }
 
     //endregion
@@ -382,42 +928,49 @@ public class AppiumDriverFacade {
      * This method is used to check if an element is enable.
      */
     public static boolean isElementEnabled(MobileElement element) {
-        try
-        {
-            return element.isEnabled();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | StaleElementReferenceException | IllegalStateException e)
-        {
-            return false;
-        }
+        return ElementProbe.isEnabled(element);
     }
 
     /**
      * This method is used to check if an element with certain index is enable.
      */
     public static boolean isElementEnabled(List<MobileElement> elements, int index){
-        try
-        {
-            return elements.get(index).isEnabled();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | StaleElementReferenceException | IllegalStateException e)
-        {
-            return false;
-        }
+        return index >= 0 && index < elements.size() && ElementProbe.isEnabled(elements.get(index));
     }
 
     /**
-     * This method is used to check if an element with certain text is enable.
+     * This method is used to check if an element with certain text is enable. The elements aren't read: the device
+     * finds the first element of the screen whose text contains the element text, in a single round trip.
+     * @deprecated use isElementEnabled(String)
      */
+    @Deprecated
     public static boolean isElementEnabled(List<MobileElement> elements, String elementText){
-        try
-        {
-        return getElementByText(elements, elementText).isEnabled();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | StaleElementReferenceException | IllegalStateException e)
-        {
-            return false;
-        }
+        return isElementEnabled(elementText);
+    }
+
+    /**
+     * This method is used to check if the first element whose text contains the element text is enable, without
+     * waiting for it.
+     */
+    public static boolean isElementEnabled(String elementText){
+        ElementProbe.State state = probeSnapshot(elementText);
+        return state != null ? state.isEnabled() : ElementProbe.isEnabled(findFirstNow(byText(elementText)));
+    }
+
+    /**
+     * This method is used to check if an element is present, without waiting for it.
+     */
+    public static boolean isElementPresent(By locator){
+        ElementProbe.State state = probeSnapshot(locator);
+        return state != null ? state.isPresent() : findFirstNow(locator) != null;
+    }
+
+    /**
+     * This method is used to check if the first element of the locator is enable, without waiting for it.
+     */
+    public static boolean isElementEnabled(By locator){
+        ElementProbe.State state = probeSnapshot(locator);
+        return state != null ? state.isEnabled() : ElementProbe.isEnabled(findFirstNow(locator));
     }
 
     /**
@@ -425,14 +978,7 @@ public class AppiumDriverFacade {
      */
     public static boolean isElementVisible(MobileElement element)
     {
-        try
-        {
-            return element.isDisplayed();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        return ElementProbe.isDisplayed(element);
     }
 
     /**
@@ -440,29 +986,72 @@ public class AppiumDriverFacade {
      */
     public static boolean isElementVisible(List<MobileElement> elements, int index)
     {
-        try
-        {
-            return elements.get(index).isDisplayed();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        return index >= 0 && index < elements.size() && ElementProbe.isDisplayed(elements.get(index));
     }
 
     /**
-     * This method is used to check if an element with certain text is visible.
+     * This method is used to check if an element with certain text is visible. The elements aren't read: the device
+     * finds the first element of the screen whose text contains the element text, in a single round trip.
+     * @deprecated use isElementVisible(String)
      */
+    @Deprecated
     public static boolean isElementVisible(List<MobileElement> elements, String text)
     {
-        try
-        {
-            return getElementByText(elements, text).isDisplayed();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | StaleElementReferenceException | IllegalStateException e)
-        {
-            return false;
-        }
+        return isElementVisible(text);
+    }
+
+    /**
+     * This method is used to check if the first element whose text contains the element text is visible, without
+     * waiting for it.
+     */
+    public static boolean isElementVisible(String elementText)
+    {
+        ElementProbe.State state = probeSnapshot(elementText);
+        return state != null ? state.isDisplayed() : ElementProbe.isDisplayed(findFirstNow(byText(elementText)));
+    }
+
+    /**
+     * This method is used to check if the first element of the locator is visible, without waiting for it.
+     */
+    public static boolean isElementVisible(By locator)
+    {
+        ElementProbe.State state = probeSnapshot(locator);
+        return state != null ? state.isDisplayed() : ElementProbe.isDisplayed(findFirstNow(locator));
+    }
+
+    /**
+     * This method is used to find the first element of the locator on the device without waiting for the implicit
+     * wait, or null when there isn't any. A presence check takes this single call, and the visibility and enabled
+     * checks read only the one attribute they need.
+     */
+    private static MobileElement findFirstNow(By locator){
+        ElementProbe.countLookupProbe();
+        List<MobileElement> elements = ElementProbe.findElementsNow(getDriver(), locator);
+        return elements.isEmpty() ? null : elements.get(0);
+    }
+
+    /**
+     * This method is used to answer a probe from the screen snapshot, only when the caller took one with
+     * getScreenSnapshot, as reading the whole screen can take seconds. Returns null when there isn't a snapshot
+     * or it can't evaluate the locator.
+     */
+    private static ElementProbe.State probeSnapshot(By locator){
+        ScreenSnapshot snapshot = screenSnapshot.get();
+        if (snapshot == null || !ScreenSnapshot.isSupported(locator)) return null;
+        ElementProbe.countSnapshotProbe();
+        return toState(snapshot.find(locator));
+    }
+
+    private static ElementProbe.State probeSnapshot(String elementText){
+        ScreenSnapshot snapshot = screenSnapshot.get();
+        if (snapshot == null) return null;
+        ElementProbe.countSnapshotProbe();
+        return toState(snapshot.findByText(elementText));
+    }
+
+    private static ElementProbe.State toState(ScreenSnapshot.Node node){
+        if (node == null) return ElementProbe.State.ABSENT;
+        return new ElementProbe.State(true, node.isDisplayed(), node.isEnabled());
     }
 
     //endregion
@@ -473,16 +1062,14 @@ public class AppiumDriverFacade {
      * This method is used to write on an element from locator.
      */
     public static void clickAndroidBackButton(int secondsToWait){
-        ((AndroidDriver) appiumDriverFacade).pressKeyCode(AndroidKeyCode.BACK);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("AppiumDriverFacade.clickAndroidBackButton", null, secondsToWait, () -> ((AndroidDriver) getDriver()).pressKeyCode(AndroidKeyCode.BACK));
     }
 
     /**
      * This method is used to write on an element from locator.
      */
     public static void clickAndroidHomeButton(int secondsToWait){
-        ((AndroidDriver) appiumDriverFacade).pressKeyCode(AndroidKeyCode.HOME);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("AppiumDriverFacade.clickAndroidHomeButton", null, secondsToWait, () -> ((AndroidDriver) getDriver()).pressKeyCode(AndroidKeyCode.HOME));
     }
 
     //endregion
@@ -0,0 +1,241 @@
+package framework;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * This class is used to run the same scenario at the same time on several browsers and window sizes, each one
+ * on its own thread and session of the WebDriverFacade. A failure on one browser doesn't stop the others, and the
+ * outcome and times of every browser are merged on a single result.
+ */
+public class BrowserFanOut {
+
+    private final List<String> devices;
+    private List<String> sizes = Collections.singletonList("FULL");
+    private String downloadDirectory;
+    private LaunchProfile launchProfile = LaunchProfile.standard();
+
+    private BrowserFanOut(List<String> devices){
+        this.devices = devices;
+    }
+
+    /**
+     * This method is used to run the scenarios on the given browsers: FIREFOX, CHROME or EDGE.
+     */
+    public static BrowserFanOut across(String... devices){
+        if (devices.length == 0) throw new IllegalArgumentException("At least one browser is needed");
+        return new BrowserFanOut(Arrays.asList(devices));
+    }
+
+    //region Fan-out Configuration
+
+    /**
+     * This method is used to run the scenarios on every browser with each one of the given sizes, like SMALL or
+     * FULL. By default the windows are maximized.
+     */
+    public BrowserFanOut withSizes(String... windowSizes){
+        if (windowSizes.length == 0) throw new IllegalArgumentException("At least one size is needed");
+        sizes = Arrays.asList(windowSizes);
+        return this;
+    }
+
+    public BrowserFanOut withDownloadDirectory(String directory){
+        downloadDirectory = directory;
+        return this;
+    }
+
+    public BrowserFanOut withLaunchProfile(LaunchProfile profile){
+        launchProfile = profile;
+        return this;
+    }
+
+    //endregion
+
+    /**
+     * This method is used to run the scenario body on every browser and size at the same time and wait until all
+     * of them finish. The body uses the facade as usual, the session of its thread is the one of its target.
+     * Sessions are returned to the pool when the body passes and closed when it fails. Targets beyond the size of
+     * the driver pool wait for a free session.
+     */
+    public FanOutResult run(String scenario, Consumer<Target> body){
+        List<Target> targets = new ArrayList<>();
+        for (String device: devices) for (String size: sizes) targets.add(new Target(device, size));
+        ExecutorService executor = Executors.newFixedThreadPool(targets.size(), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        Map<Target, Future<TargetResult>> runs = new LinkedHashMap<>();
+        for (Target target: targets) runs.put(target, executor.submit(() -> runOn(scenario, target, body)));
+        executor.shutdown();
+        Map<Target, TargetResult> results = new LinkedHashMap<>();
+        for (Map.Entry<Target, Future<TargetResult>> run: runs.entrySet()) {
+            try {
+                results.put(run.getKey(), run.getValue().get());
+            } catch (ExecutionException e) {
+                results.put(run.getKey(), new TargetResult(0, 0, e.getCause()));
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(String.format(
+                        "The thread was interrupted while running the scenario %s", scenario), e);
+            }
+        }
+        return new FanOutResult(scenario, results, System.nanoTime() - start);
+    }
+
+    private TargetResult runOn(String scenario, Target target, Consumer<Target> body){
+        Thread.currentThread().setName(String.format("fan-out-%s-%s", target.device, target.size));
+        long leaseStart = System.nanoTime();
+        try {
+            WebDriverFacade.createDriver(target.device, target.size, downloadDirectory, launchProfile);
+        } catch (RuntimeException e) {
+            return new TargetResult(System.nanoTime() - leaseStart, 0, e);
+        }
+        long scenarioStart = System.nanoTime();
+        Throwable failure = null;
+        try {
+            body.accept(target);
+        } catch (RuntimeException | AssertionError e) {
+            failure = e;
+        }
+        long scenarioNanos = System.nanoTime() - scenarioStart;
+        Instrumentation.recordFacadeMethod(String.format("BrowserFanOut[%s:%s]", scenario, target), scenarioStart);
+        try {
+            if (failure == null) WebDriverFacade.releaseDriver();
+            else WebDriverFacade.shutDown();
+        } catch (RuntimeException e) {
+            if (failure == null) failure = e;
+            if (WebDriverFacade.getDriverPool().hasCurrent()) WebDriverFacade.getDriverPool().discard();
+        }
+        return new TargetResult(scenarioStart - leaseStart, scenarioNanos, failure);
+    }
+
+    /**
+     * This class is used to identify a browser and window size of the fan-out.
+     */
+    public static final class Target {
+
+        private final String device;
+        private final String size;
+
+        private Target(String device, String size){
+            this.device = device.toUpperCase();
+            this.size = size.toUpperCase();
+        }
+
+        public String getDevice() { return device; }
+
+        public String getSize() { return size; }
+
+        @Override
+        public boolean equals(Object other){
+            if (!(other instanceof Target)) return false;
+            return device.equals(((Target) other).device) && size.equals(((Target) other).size);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(device, size); }
+
+        @Override
+        public String toString() { return device + "/" + size; }
+    }
+
+    /**
+     * This class is used to keep the outcome and times of the scenario on one target.
+     */
+    public static final class TargetResult {
+
+        private final long leaseNanos;
+        private final long scenarioNanos;
+        private final Throwable failure;
+
+        private TargetResult(long leaseNanos, long scenarioNanos, Throwable failure){
+            this.leaseNanos = leaseNanos;
+            this.scenarioNanos = scenarioNanos;
+            this.failure = failure;
+        }
+
+        public boolean isPassed() { return failure == null; }
+
+        /**
+         * This method is used to return the failure of the scenario or of its session, or null when it passed.
+         */
+        public Throwable getFailure() { return failure; }
+
+        /**
+         * This method is used to return the time waited for the session, warm or new.
+         */
+        public double getLeaseMillis() { return leaseNanos / 1e6; }
+
+        public double getScenarioMillis() { return scenarioNanos / 1e6; }
+    }
+
+    /**
+     * This class is used to merge the outcome of the scenario on every target.
+     */
+    public static final class FanOutResult {
+
+        private final String scenario;
+        private final Map<Target, TargetResult> results;
+        private final long wallNanos;
+
+        private FanOutResult(String scenario, Map<Target, TargetResult> results, long wallNanos){
+            this.scenario = scenario;
+            this.results = Collections.unmodifiableMap(results);
+            this.wallNanos = wallNanos;
+        }
+
+        public String getScenario() { return scenario; }
+
+        public Map<Target, TargetResult> getResults() { return results; }
+
+        public boolean isPassed(){
+            for (TargetResult result: results.values()) if (!result.isPassed()) return false;
+            return true;
+        }
+
+        public List<Target> getFailedTargets(){
+            List<Target> failed = new ArrayList<>();
+            for (Map.Entry<Target, TargetResult> result: results.entrySet())
+                if (!result.getValue().isPassed()) failed.add(result.getKey());
+            return failed;
+        }
+
+        /**
+         * This method is used to return the time from the start of the fan-out until the last target finished.
+         */
+        public double getWallMillis() { return wallNanos / 1e6; }
+
+        /**
+         * This method is used to throw an IllegalStateException naming every failed target, with their failures
+         * added as suppressed exceptions.
+         */
+        public void throwIfFailed(){
+            List<Target> failed = getFailedTargets();
+            if (failed.isEmpty()) return;
+            IllegalStateException exception = new IllegalStateException(String.format(
+                    "The scenario %s failed on %s", scenario, failed));
+            for (Target target: failed) exception.addSuppressed(results.get(target).getFailure());
+            throw exception;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%s wallMs=%.1f%n", scenario,
+                    getWallMillis()));
+            for (Map.Entry<Target, TargetResult> result: results.entrySet()) {
+                TargetResult value = result.getValue();
+                report.append(String.format(Locale.ROOT, "  %s %s leaseMs=%.1f scenarioMs=%.1f%s%n", result.getKey(),
+                        value.isPassed() ? "PASSED" : "FAILED", value.getLeaseMillis(), value.getScenarioMillis(),
+                        value.isPassed() ? "" : " " + value.getFailure()));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,594 @@
+package framework;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.remote.*;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class is used to record every driver command sent by the instrumented sessions of both facades, with its
+ * parameters, response and timing, on an append-only binary log, and to replay a log against a local server. The
+ * commands are only queued on the test threads; a background thread converts and writes them. The queue is bounded,
+ * so when the writer falls behind the test threads wait for it instead of piling up responses in memory.
+ * <p>
+ * The large texts, like the screenshots and the page sources, are written once per content in a side directory
+ * named after the log, and the log only keeps their SHA-256 digest.
+ */
+public class CommandLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x4146434C;
+    private static final int VERSION = 2;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int LARGE_PAYLOAD_CHARS = 16 * 1024;
+    private static final String PAYLOAD_KEY = "command-log-payload";
+    private static final Pattern PAYLOAD_REFERENCE = Pattern.compile(
+            "\\{\"" + PAYLOAD_KEY + "\":\"([0-9a-f]{64})\"\\}");
+    private static final int NAME_ENTRY = 1;
+    private static final int COMMAND_ENTRY = 2;
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+    private static final Gson gson = new GsonBuilder().serializeNulls().create();
+    private static final Entry END = new Entry(null, null, null, 0, 0, false);
+    private static volatile CommandLog active;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CommandLog::stopQuietly, "command-log-stop"));
+    }
+
+    private final Path file;
+    private final long startNanos = System.nanoTime();
+    private final BlockingQueue<Entry> pendingEntries = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile IOException failure;
+
+    private CommandLog(Path file){
+        this.file = file;
+        writer = new Thread(this::writeEntries, "command-log-writer");
+        writer.setDaemon(true);
+    }
+
+    //region Recording
+
+    /**
+     * This method is used to start recording every command of the instrumented sessions on the given file, which
+     * is replaced when it exists.
+     */
+    public static synchronized CommandLog start(Path file){
+        if (active != null)
+            throw new IllegalStateException(String.format("The commands are already recorded on %s", active.file));
+        CommandLog log = new CommandLog(file);
+        log.writer.start();
+        active = log;
+        return log;
+    }
+
+    /**
+     * This method is used to stop recording, once every queued command is written.
+     */
+    public static synchronized void stop(){
+        if (active != null) active.close();
+    }
+
+    private static void stopQuietly(){
+        try {
+            stop();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static boolean isRecording() { return active != null; }
+
+    /**
+     * This method is used to return the directory the large payloads of a log are written on.
+     */
+    public static Path getPayloadDirectory(Path file){
+        return file.resolveSibling(file.getFileName() + ".payloads");
+    }
+
+    /**
+     * This method is used to queue a command that started at the given System.nanoTime value. The response is
+     * null when the command failed before getting one. When the queue is full the call waits for the writer.
+     */
+    static void record(Command command, Response response, long startNanos){
+        CommandLog log = active;
+        if (log == null) return;
+        long durationNanos = System.nanoTime() - startNanos;
+        String sessionId = command.getSessionId() != null ? command.getSessionId().toString()
+                : response != null && response.getSessionId() != null ? response.getSessionId() : "";
+        log.enqueue(new Entry(command, sessionId, response, startNanos - log.startNanos, durationNanos,
+                response != null));
+    }
+
+    /**
+     * The writer stops at the end mark or on a failure, so an entry queued after that is dropped instead of
+     * waiting forever on a full queue.
+     */
+    private void enqueue(Entry entry){
+        try {
+            while (!pendingEntries.offer(entry, 100, TimeUnit.MILLISECONDS))
+                if (!writer.isAlive()) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The thread was interrupted while queueing a command", e);
+        }
+    }
+
+    @Override
+    public void close(){
+        synchronized (CommandLog.class) {
+            if (active == this) active = null;
+        }
+        enqueue(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The thread was interrupted while writing the command log", e);
+        }
+        if (failure != null) throw new UncheckedIOException(String.format("The command log %s couldn't be written",
+                file), failure);
+    }
+
+    private void writeEntries(){
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), 64 * 1024))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                Map<String, Integer> names = new HashMap<>();
+                Payloads payloads = new Payloads(getPayloadDirectory(file));
+                for (Entry entry = pendingEntries.take(); entry != END; entry = pendingEntries.take()) {
+                    entry.write(output, names, payloads);
+                    if (pendingEntries.isEmpty()) output.flush();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(){
+        try {
+            while (pendingEntries.take() != END) { }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //endregion
+
+    //region Reading
+
+    /**
+     * This method is used to read every command of a log, in recording order.
+     */
+    public static List<Record> read(Path file){
+        List<Record> records = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC) throw new IllegalArgumentException(String.format(
+                    "The file %s is not a command log", file));
+            int version = input.readInt();
+            if (version < 1 || version > VERSION) throw new IllegalArgumentException(String.format(
+                    "The command log version %d is not supported", version));
+            List<String> names = new ArrayList<>();
+            while (true) {
+                int type = input.read();
+                if (type < 0) return records;
+                if (type == NAME_ENTRY) names.add(input.readUTF());
+                else if (type == COMMAND_ENTRY) records.add(Record.read(input, names, getPayloadDirectory(file)));
+                else throw new IllegalArgumentException(String.format("The command log %s is corrupted", file));
+            }
+        } catch (EOFException e) {
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The command log %s couldn't be read", file), e);
+        }
+    }
+
+    /**
+     * This class is used to read a recorded command. The parameters and the response value are kept as JSON, and
+     * their large payloads are only read from the side directory when they are asked for.
+     */
+    public static class Record {
+
+        private final String name;
+        private final String sessionId;
+        private final long startNanos;
+        private final long durationNanos;
+        private final boolean answered;
+        private final String parameters;
+        private final String response;
+        private final Path payloads;
+
+        private Record(String name, String sessionId, long startNanos, long durationNanos, boolean answered,
+                       String parameters, String response, Path payloads){
+            this.name = name;
+            this.sessionId = sessionId;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.answered = answered;
+            this.parameters = parameters;
+            this.response = response;
+            this.payloads = payloads;
+        }
+
+        private static Record read(DataInputStream input, List<String> names, Path payloads) throws IOException {
+            String name = names.get(readVarInt(input));
+            String sessionId = names.get(readVarInt(input));
+            long startNanos = readVarLong(input);
+            long durationNanos = readVarLong(input);
+            boolean answered = input.readBoolean();
+            return new Record(name, sessionId, startNanos, durationNanos, answered, readText(input), readText(input),
+                    payloads);
+        }
+
+        public String getName() { return name; }
+
+        public String getSessionId() { return sessionId; }
+
+        /**
+         * This method is used to return when the command started, in nanoseconds since the log was started.
+         */
+        public long getStartNanos() { return startNanos; }
+
+        public long getDurationNanos() { return durationNanos; }
+
+        /**
+         * This method is used to check if the server answered, false when the command failed before.
+         */
+        public boolean isAnswered() { return answered; }
+
+        public String getParameters() { return resolvePayloads(parameters, payloads); }
+
+        public String getResponse() { return resolvePayloads(response, payloads); }
+
+        @Override
+        public String toString(){
+            return String.format(Locale.ROOT, "%s %.3fms %s -> %s", name, durationNanos / 1e6, parameters, response);
+        }
+    }
+
+    //endregion
+
+    //region Replay
+
+    /**
+     * This method is used to send every command of the log to the server at the given URL, like the stand-in
+     * server, as fast as it answers. Every recorded session starts a new session, and the element ids found on
+     * the replay are used instead of the recorded ones.
+     */
+    public static ReplayReport replay(Path file, URL server){
+        ReplayReport report = new ReplayReport();
+        Map<String, HttpCommandExecutor> executors = new HashMap<>();
+        Map<String, String> sessionIds = new HashMap<>();
+        Map<String, String> elementIds = new HashMap<>();
+        for (Record record: read(file)) {
+            long start = System.nanoTime();
+            try {
+                Response response;
+                if (record.name.equals(DriverCommand.NEW_SESSION)) {
+                    response = newSession(executors, sessionIds, record.sessionId, server,
+                            (Map<?, ?>) fromJson(record.getParameters()));
+                } else {
+                    if (!sessionIds.containsKey(record.sessionId))
+                        newSession(executors, sessionIds, record.sessionId, server, Collections.emptyMap());
+                    Object parameters = replaceIds(fromJson(record.getParameters()), elementIds);
+                    response = executors.get(record.sessionId).execute(new Command(
+                            new SessionId(sessionIds.get(record.sessionId)), record.name, toParameters(parameters)));
+                }
+                mapElementIds(fromJson(record.response), toPlain(response.getValue(), null), elementIds);
+                report.record(record, System.nanoTime() - start, response.getStatus() == null
+                        || response.getStatus() == 0);
+            } catch (IOException | WebDriverException e) {
+                report.record(record, System.nanoTime() - start, false);
+            }
+        }
+        return report;
+    }
+
+    private static Response newSession(Map<String, HttpCommandExecutor> executors, Map<String, String> sessionIds,
+                                       String recordedSessionId, URL server, Map<?, ?> parameters) throws IOException {
+        HttpCommandExecutor executor = new HttpCommandExecutor(server);
+        Object capabilities = parameters.get("desiredCapabilities");
+        Map<String, Object> sessionParameters = new HashMap<>();
+        sessionParameters.put("desiredCapabilities", new DesiredCapabilities(capabilities instanceof Map
+                ? toParameters(capabilities) : Collections.emptyMap()));
+        Response response = executor.execute(new Command(null, DriverCommand.NEW_SESSION, sessionParameters));
+        executors.put(recordedSessionId, executor);
+        sessionIds.put(recordedSessionId, response.getSessionId());
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toParameters(Object parameters){
+        return parameters instanceof Map ? (Map<String, Object>) parameters : Collections.emptyMap();
+    }
+
+    private static Object replaceIds(Object value, Map<String, String> elementIds){
+        if (value instanceof String) return elementIds.getOrDefault(value, (String) value);
+        if (value instanceof Map) {
+            Map<Object, Object> replaced = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry: ((Map<?, ?>) value).entrySet())
+                replaced.put(entry.getKey(), replaceIds(entry.getValue(), elementIds));
+            return replaced;
+        }
+        if (value instanceof List) {
+            List<Object> replaced = new ArrayList<>();
+            for (Object item: (List<?>) value) replaced.add(replaceIds(item, elementIds));
+            return replaced;
+        }
+        return value;
+    }
+
+    /**
+     * This method is used to pair the element ids of the recorded response with the ones of the replay, in order.
+     */
+    private static void mapElementIds(Object recorded, Object replayed, Map<String, String> elementIds){
+        List<String> recordedIds = new ArrayList<>();
+        List<String> replayedIds = new ArrayList<>();
+        collectElementIds(recorded, recordedIds);
+        collectElementIds(replayed, replayedIds);
+        for (int i = 0; i < Math.min(recordedIds.size(), replayedIds.size()); i++)
+            elementIds.put(recordedIds.get(i), replayedIds.get(i));
+    }
+
+    private static void collectElementIds(Object value, List<String> ids){
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Object id = map.containsKey(ELEMENT_KEY) ? map.get(ELEMENT_KEY) : map.get("ELEMENT");
+            if (id instanceof String) ids.add((String) id);
+            else for (Object item: map.values()) collectElementIds(item, ids);
+        } else if (value instanceof List) {
+            for (Object item: (List<?>) value) collectElementIds(item, ids);
+        }
+    }
+
+    /**
+     * This class is used to compare the replay with the recorded run, per command.
+     */
+    public static class ReplayReport {
+
+        private final Map<String, LatencyHistogram> replayed = new TreeMap<>();
+        private final Map<String, LatencyHistogram> recorded = new TreeMap<>();
+        private int commands;
+        private int failures;
+
+        private void record(Record record, long replayNanos, boolean succeeded){
+            commands++;
+            if (!succeeded) failures++;
+            replayed.computeIfAbsent(record.name, n -> new LatencyHistogram()).record(replayNanos);
+            recorded.computeIfAbsent(record.name, n -> new LatencyHistogram()).record(record.durationNanos);
+        }
+
+        public int getCommands() { return commands; }
+
+        /**
+         * This method is used to return how many commands got an error or no answer from the server.
+         */
+        public int getFailures() { return failures; }
+
+        public Map<String, LatencyHistogram> getReplayed() { return Collections.unmodifiableMap(replayed); }
+
+        public Map<String, LatencyHistogram> getRecorded() { return Collections.unmodifiableMap(recorded); }
+
+        @Override
+        public String toString(){
+            StringBuilder report = new StringBuilder(String.format("commands=%d failures=%d%n", commands, failures));
+            for (Map.Entry<String, LatencyHistogram> entry: replayed.entrySet()) {
+                LatencyHistogram live = recorded.get(entry.getKey());
+                report.append(String.format(Locale.ROOT, "%s count=%d recordedMs=%.1f replayedMs=%.1f%n",
+                        entry.getKey(), entry.getValue().getCount(), live.getTotalMillis(),
+                        entry.getValue().getTotalMillis()));
+            }
+            return report.toString();
+        }
+    }
+
+    //endregion
+
+    //region Encoding
+
+    /**
+     * This class is used to keep a queued command until the writer thread converts and writes it.
+     */
+    private static class Entry {
+
+        private final Command command;
+        private final String sessionId;
+        private final Object responseValue;
+        private final long startNanos;
+        private final long durationNanos;
+        private final boolean answered;
+
+        private Entry(Command command, String sessionId, Response response, long startNanos, long durationNanos,
+                      boolean answered){
+            this.command = command;
+            this.sessionId = sessionId;
+            this.responseValue = response == null ? null : response.getValue();
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.answered = answered;
+        }
+
+        private void write(DataOutputStream output, Map<String, Integer> names, Payloads payloads)
+                throws IOException {
+            int name = nameIndex(output, names, command.getName());
+            int session = nameIndex(output, names, sessionId);
+            output.write(COMMAND_ENTRY);
+            writeVarLong(output, name);
+            writeVarLong(output, session);
+            writeVarLong(output, Math.max(0, startNanos));
+            writeVarLong(output, durationNanos);
+            output.writeBoolean(answered);
+            writeText(output, gson.toJson(toPlain(command.getParameters(), payloads)));
+            writeText(output, gson.toJson(toPlain(responseValue, payloads)));
+        }
+
+        private static int nameIndex(DataOutputStream output, Map<String, Integer> names, String name)
+                throws IOException {
+            Integer index = names.get(name);
+            if (index != null) return index;
+            output.write(NAME_ENTRY);
+            output.writeUTF(name);
+            names.put(name, names.size());
+            return names.size() - 1;
+        }
+    }
+
+    /**
+     * This class is used to write the large payloads of a log, once per content, named after their digest.
+     */
+    private static class Payloads {
+
+        private final Path directory;
+        private final Set<String> written = new HashSet<>();
+
+        private Payloads(Path directory){
+            this.directory = directory;
+        }
+
+        private String store(String text){
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            String digest = digest(bytes);
+            if (!written.add(digest)) return digest;
+            Path target = directory.resolve(digest);
+            try {
+                if (Files.exists(target)) return digest;
+                Files.createDirectories(directory);
+                Path temporary = Files.createTempFile(directory, digest, ".tmp");
+                try {
+                    Files.write(temporary, bytes);
+                    try {
+                        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException e) {
+                written.remove(digest);
+                throw new UncheckedIOException(String.format("The payload %s couldn't be written", target), e);
+            }
+            return digest;
+        }
+
+        private static String digest(byte[] bytes){
+            try {
+                StringBuilder hex = new StringBuilder(64);
+                for (byte b: MessageDigest.getInstance("SHA-256").digest(bytes)) hex.append(String.format("%02x", b));
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("The SHA-256 digest is not available", e);
+            }
+        }
+    }
+
+    /**
+     * This method is used to put the large payloads referenced by the JSON of a record back in place.
+     */
+    private static String resolvePayloads(String json, Path directory){
+        if (!json.contains(PAYLOAD_KEY)) return json;
+        Matcher reference = PAYLOAD_REFERENCE.matcher(json);
+        StringBuffer resolved = new StringBuffer(json.length());
+        while (reference.find()) {
+            Path payload = directory.resolve(reference.group(1));
+            try {
+                String text = new String(Files.readAllBytes(payload), StandardCharsets.UTF_8);
+                reference.appendReplacement(resolved, Matcher.quoteReplacement(gson.toJson(text)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("The payload %s couldn't be read", payload), e);
+            }
+        }
+        return reference.appendTail(resolved).toString();
+    }
+
+    /**
+     * This method is used to turn the elements and capabilities of a command into plain maps and lists that can
+     * be written as JSON. The large texts are stored on the given payloads, when there are any, and replaced by
+     * their digest.
+     */
+    private static Object toPlain(Object value, Payloads payloads){
+        if (value instanceof String && payloads != null && ((String) value).length() >= LARGE_PAYLOAD_CHARS)
+            return Collections.singletonMap(PAYLOAD_KEY, payloads.store((String) value));
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean)
+            return value;
+        if (value instanceof WrapsElement) return toPlain(((WrapsElement) value).getWrappedElement(), payloads);
+        if (value instanceof RemoteWebElement)
+            return Collections.singletonMap(ELEMENT_KEY, ((RemoteWebElement) value).getId());
+        if (value instanceof Capabilities) return toPlain(((Capabilities) value).asMap(), payloads);
+        if (value instanceof Map) {
+            Map<String, Object> plain = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry: ((Map<?, ?>) value).entrySet())
+                plain.put(String.valueOf(entry.getKey()), toPlain(entry.getValue(), payloads));
+            return plain;
+        }
+        if (value instanceof Collection) {
+            List<Object> plain = new ArrayList<>();
+            for (Object item: (Collection<?>) value) plain.add(toPlain(item, payloads));
+            return plain;
+        }
+        if (value instanceof Object[]) return toPlain(Arrays.asList((Object[]) value), payloads);
+        if (value instanceof Enum) return ((Enum<?>) value).name();
+        return String.valueOf(value);
+    }
+
+    private static Object fromJson(String json){
+        return gson.fromJson(json, Object.class);
+    }
+
+    private static void writeText(DataOutputStream output, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readText(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[readVarInt(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("The variable length number is too long");
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        return (int) readVarLong(input);
+    }
+
+    //endregion
+}
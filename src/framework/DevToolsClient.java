@@ -0,0 +1,79 @@
+package framework;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This class is used to send DevTools protocol commands to a Chrome session through its driver server, which runs
+ * them on the browser. Only sessions registered with the URL of their driver server can be reached.
+ */
+public class DevToolsClient {
+
+    private static final Map<WebDriver, DevToolsClient> clients = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Gson gson = new Gson();
+
+    private final URL driverServer;
+    private final String sessionId;
+
+    private DevToolsClient(URL driverServer, String sessionId){
+        this.driverServer = driverServer;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * This method is used to remember the driver server of a Chrome session, so its DevTools can be reached.
+     */
+    public static DevToolsClient register(RemoteWebDriver driver, URL driverServer){
+        DevToolsClient client = new DevToolsClient(driverServer, driver.getSessionId().toString());
+        clients.put(driver, client);
+        return client;
+    }
+
+    /**
+     * This method is used to return the DevTools client of a driver session, or null when it can't be reached.
+     */
+    public static DevToolsClient forDriver(WebDriver driver){
+        return clients.get(driver);
+    }
+
+    /**
+     * This method is used to run a DevTools command with the given parameters on the browser.
+     */
+    public void execute(String command, JsonObject parameters){
+        JsonObject body = new JsonObject();
+        body.addProperty("cmd", command);
+        body.add("params", parameters);
+        try {
+            URL url = new URL(driverServer, String.format("/session/%s/goog/cdp/execute", sessionId));
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(gson.toJson(body).getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            try (InputStream input = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (status >= 400)
+                    throw new IllegalStateException(String.format("The DevTools command %s failed with status %d",
+                            command, status));
+                while (input != null && input.read() >= 0) { }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The DevTools command %s couldn't be sent", command), e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package framework;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * This class is used to describe a device or emulator reachable through an Appium server. The local port is the
+ * port the automation server of the device listens on inside the host, the systemPort of UiAutomator2 or the
+ * wdaLocalPort of XCUITest, and must be different for every device of the same host.
+ */
+public final class DeviceDescriptor {
+
+    private final String type;
+    private final String model;
+    private final String osVersion;
+    private final String serverUrl;
+    private final String udid;
+    private final int localPort;
+
+    public DeviceDescriptor(String type, String model, String osVersion, String serverUrl, String udid){
+        this(type, model, osVersion, serverUrl, udid, 0);
+    }
+
+    private DeviceDescriptor(String type, String model, String osVersion, String serverUrl, String udid,
+                             int localPort){
+        this.type = type.toUpperCase();
+        this.model = model;
+        this.osVersion = osVersion;
+        this.serverUrl = serverUrl;
+        this.udid = udid;
+        this.localPort = localPort;
+    }
+
+    /**
+     * This method is used to return a copy of the descriptor with the given local port.
+     */
+    public DeviceDescriptor withLocalPort(int localPort){
+        return new DeviceDescriptor(type, model, osVersion, serverUrl, udid, localPort);
+    }
+
+    public String getType() { return type; }
+
+    public String getModel() { return model; }
+
+    public String getOsVersion() { return osVersion; }
+
+    public String getServerUrl() { return serverUrl; }
+
+    public URL getUrl(){
+        try {
+            return new URL(serverUrl);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(String.format("The server URL %s is not valid", serverUrl), e);
+        }
+    }
+
+    /**
+     * This method is used to return the device identifier, or null when the server picks any device of the model.
+     */
+    public String getUdid() { return udid; }
+
+    /**
+     * This method is used to return the local port of the device, zero when the server picks it.
+     */
+    public int getLocalPort() { return localPort; }
+
+    /**
+     * This method is used to return a key that identifies the device, to reuse only its own sessions.
+     */
+    public String getKey(){
+        return String.format("%s:%s:%s:%s:%s", type, model, osVersion, serverUrl, udid);
+    }
+
+    @Override
+    public String toString(){
+        return getKey();
+    }
+}
@@ -0,0 +1,147 @@
+package framework;
+
+import org.openqa.selenium.TimeoutException;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * This class is used to lease the devices of a pool to the test threads, one thread per device. Every device gets
+ * its own free local port, so parallel sessions on the same host don't collide, and devices that keep failing
+ * are retired from the pool.
+ */
+public class DeviceScheduler {
+
+    private static final int FIRST_LOCAL_PORT = 8200;
+
+    private final List<DeviceDescriptor> devices = new ArrayList<>();
+    private final Deque<DeviceDescriptor> idleDevices = new ArrayDeque<>();
+    private final Set<DeviceDescriptor> retiredDevices = new LinkedHashSet<>();
+    private final Map<DeviceDescriptor, Integer> failures = new HashMap<>();
+    private int maxFailures = 2;
+
+    /**
+     * This method is used to create the pool with the given devices. Devices without local port get the next
+     * free one, skipping the ports already given to the other devices.
+     */
+    public DeviceScheduler(List<DeviceDescriptor> devices){
+        Set<Integer> usedPorts = new HashSet<>();
+        for (DeviceDescriptor device: devices) if (device.getLocalPort() > 0) usedPorts.add(device.getLocalPort());
+        int nextPort = FIRST_LOCAL_PORT;
+        for (DeviceDescriptor device: devices) {
+            if (device.getLocalPort() == 0) {
+                while (usedPorts.contains(nextPort) || !isFree(nextPort)) nextPort++;
+                usedPorts.add(nextPort);
+                device = device.withLocalPort(nextPort);
+            }
+            this.devices.add(device);
+            idleDevices.addLast(device);
+        }
+    }
+
+    //region Scheduler Configuration
+
+    /**
+     * This method is used to set after how many failures in a row a device is retired.
+     */
+    public synchronized void setMaxFailures(int maxFailures){
+        if (maxFailures < 1) throw new IllegalArgumentException("The maximum amount of failures must be greater than zero");
+        this.maxFailures = maxFailures;
+    }
+
+    public synchronized List<DeviceDescriptor> getDevices(){
+        return new ArrayList<>(devices);
+    }
+
+    /**
+     * This method is used to return the devices waiting to be leased.
+     */
+    public synchronized int idleCount(){
+        return idleDevices.size();
+    }
+
+    public synchronized Set<DeviceDescriptor> getRetiredDevices(){
+        return new LinkedHashSet<>(retiredDevices);
+    }
+
+    //endregion
+
+    //region Device Leasing
+
+    /**
+     * This method is used to lease any device, waiting up to the given seconds until one is released.
+     */
+    public DeviceDescriptor lease(int secondsToWait){
+        return lease(device -> true, secondsToWait);
+    }
+
+    /**
+     * This method is used to lease a device that meets the requirement, like a device type or OS version, waiting
+     * up to the given seconds until one is released.
+     */
+    public synchronized DeviceDescriptor lease(Predicate<DeviceDescriptor> requirement, int secondsToWait){
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(secondsToWait);
+        while (true) {
+            for (Iterator<DeviceDescriptor> idle = idleDevices.iterator(); idle.hasNext(); ) {
+                DeviceDescriptor device = idle.next();
+                if (requirement.test(device)) {
+                    idle.remove();
+                    return device;
+                }
+            }
+            if (!hasCandidate(requirement))
+                throw new IllegalStateException("There isn't any healthy device that meets the requirement");
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0)
+                throw new TimeoutException(String.format("There wasn't any device released in %d seconds", secondsToWait));
+            try {
+                wait(remainingMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The thread was interrupted while waiting for a device", e);
+            }
+        }
+    }
+
+    /**
+     * This method is used to return a device to the pool after a successful use.
+     */
+    public synchronized void release(DeviceDescriptor device){
+        failures.remove(device);
+        if (!retiredDevices.contains(device)) idleDevices.addLast(device);
+        notifyAll();
+    }
+
+    /**
+     * This method is used to return a device whose session failed. After too many failures in a row the device is
+     * retired and never leased again. Returns true when the device was retired by this failure.
+     */
+    public synchronized boolean reportFailure(DeviceDescriptor device){
+        int deviceFailures = failures.merge(device, 1, Integer::sum);
+        boolean retired = deviceFailures >= maxFailures && retiredDevices.add(device);
+        if (deviceFailures < maxFailures) idleDevices.addLast(device);
+        notifyAll();
+        return retired;
+    }
+
+    private boolean hasCandidate(Predicate<DeviceDescriptor> requirement){
+        for (DeviceDescriptor device: devices)
+            if (!retiredDevices.contains(device) && requirement.test(device)) return true;
+        return false;
+    }
+
+    private static boolean isFree(int port){
+        try {
+            new ServerSocket(port, 1, InetAddress.getLoopbackAddress()).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    //endregion
+}
@@ -0,0 +1,182 @@
+package framework;
+
+import org.openqa.selenium.TimeoutException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * This class is used to wait for a file download, watching the download directory instead of sleeping.
+ */
+public class DownloadWatcher {
+
+    private static final List<String> PARTIAL_EXTENSIONS = Arrays.asList(".crdownload", ".part", ".partial", ".download");
+    private static final long STABLE_MILLIS = 500;
+    private static final long MAPPED_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final Map<Path, FileTime> claimedFiles = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Map<Path, FileTime> existingFiles;
+
+    private DownloadWatcher(Path directory, Map<Path, FileTime> existingFiles){
+        this.directory = directory;
+        this.existingFiles = existingFiles;
+    }
+
+    /**
+     * This method is used to start watching a download directory. It must be called before the download is
+     * triggered, so the files already in the directory are not taken as the download.
+     */
+    public static DownloadWatcher expect(String downloadDirectory){
+        Path directory = Paths.get(downloadDirectory).toAbsolutePath();
+        return new DownloadWatcher(directory, listFiles(directory));
+    }
+
+    /**
+     * This method is used to wait until a new file is completely downloaded and return it. Files claimed by
+     * another watcher of the same directory are skipped, so parallel downloads get their own file.
+     */
+    public Path await(int secondsToWait){
+        return awaitFile(secondsToWait, this::claimNewFile);
+    }
+
+    /**
+     * This method is used to wait until the download directory has no partial files and return the newest file.
+     */
+    public static Path awaitIdle(String downloadDirectory, int secondsToWait){
+        DownloadWatcher watcher = new DownloadWatcher(Paths.get(downloadDirectory).toAbsolutePath(), Collections.emptyMap());
+        return watcher.awaitFile(secondsToWait, watcher::findNewestIfIdle);
+    }
+
+    /**
+     * This method is used to check the size and the SHA-256 checksum of a downloaded file. The file is read
+     * with memory mapped chunks, so multi gigabyte files don't go through the heap. A null checksum only
+     * checks the size, and a negative size only checks the checksum.
+     */
+    public static void verify(Path file, long expectedSize, String expectedSha256){
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (expectedSize >= 0 && size != expectedSize)
+                throw new IllegalStateException(String.format(
+                        "The file %s has %d bytes instead of %d", file, size, expectedSize));
+            if (expectedSha256 == null) return;
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (long position = 0; position < size; position += MAPPED_CHUNK_SIZE) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAPPED_CHUNK_SIZE, size - position));
+                digest.update(chunk);
+            }
+            StringBuilder checksum = new StringBuilder();
+            for (byte b: digest.digest()) checksum.append(String.format("%02x", b));
+            if (!checksum.toString().equalsIgnoreCase(expectedSha256))
+                throw new IllegalStateException(String.format(
+                        "The file %s has the checksum %s instead of %s", file, checksum, expectedSha256));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path awaitFile(int secondsToWait, FileCheck check){
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(secondsToWait);
+        Map<Path, long[]> sizes = new HashMap<>();
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            while (true) {
+                Path file = check.find(sizes);
+                if (file != null) return file;
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0)
+                    throw new TimeoutException(String.format(
+                            "The download on %s didn't finish in %d seconds", directory, secondsToWait));
+                WatchKey key = watchService.poll(Math.min(STABLE_MILLIS, remainingMillis), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The thread was interrupted while waiting for a download", e);
+        }
+    }
+
+    private Path claimNewFile(Map<Path, long[]> sizes){
+        for (Map.Entry<Path, FileTime> file: listFiles(directory).entrySet()) {
+            Path path = file.getKey();
+            FileTime modified = file.getValue();
+            if (modified.equals(existingFiles.get(path)) || modified.equals(claimedFiles.get(path))) continue;
+            if (isPartial(path) || hasPartialSibling(path) || !isStable(path, sizes)) continue;
+            if (!modified.equals(claimedFiles.put(path, modified))) return path;
+        }
+        return null;
+    }
+
+    private Path findNewestIfIdle(Map<Path, long[]> sizes){
+        Path newest = null;
+        FileTime newestTime = null;
+        for (Map.Entry<Path, FileTime> file: listFiles(directory).entrySet()) {
+            if (isPartial(file.getKey())) return null;
+            if (newestTime == null || file.getValue().compareTo(newestTime) > 0) {
+                newest = file.getKey();
+                newestTime = file.getValue();
+            }
+        }
+        return newest != null && isStable(newest, sizes) ? newest : null;
+    }
+
+    private static boolean isStable(Path file, Map<Path, long[]> sizes){
+        try {
+            long size = Files.size(file);
+            long[] previous = sizes.get(file);
+            if (previous == null || previous[0] != size) {
+                sizes.put(file, new long[]{size, System.nanoTime()});
+                return false;
+            }
+            return System.nanoTime() - previous[1] >= TimeUnit.MILLISECONDS.toNanos(STABLE_MILLIS);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isPartial(Path file){
+        String name = file.getFileName().toString().toLowerCase();
+        for (String extension: PARTIAL_EXTENSIONS) if (name.endsWith(extension)) return true;
+        return false;
+    }
+
+    private static boolean hasPartialSibling(Path file){
+        for (String extension: PARTIAL_EXTENSIONS)
+            if (Files.exists(file.resolveSibling(file.getFileName() + extension))) return true;
+        return false;
+    }
+
+    private static Map<Path, FileTime> listFiles(Path directory){
+        Map<Path, FileTime> files = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file: stream)
+                if (Files.isRegularFile(file)) files.put(file, Files.getLastModifiedTime(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return files;
+    }
+
+    private interface FileCheck {
+        Path find(Map<Path, long[]> sizes);
+    }
+}
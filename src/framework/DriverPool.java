@@ -0,0 +1,262 @@
+package framework;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to lease one driver session per worker thread and to reuse the returned sessions.
+ */
+public class DriverPool<T extends WebDriver> {
+
+    private final Map<String, Deque<T>> idleDrivers = new HashMap<>();
+    private final Map<T, String> driverKeys = new IdentityHashMap<>();
+    private final ThreadLocal<T> currentDriver = new ThreadLocal<>();
+    private final StartupMetrics metrics = new StartupMetrics();
+    private int maxSessions;
+    private int pendingSessions;
+
+    public DriverPool(int maxSessions){
+        setMaxSessions(maxSessions);
+    }
+
+    //region Pool Configuration
+
+    /**
+     * This method is used to set the maximum amount of sessions open at the same time.
+     */
+    public synchronized void setMaxSessions(int maxSessions){
+        if (maxSessions < 1) throw new IllegalArgumentException("The maximum amount of sessions must be greater than zero");
+        this.maxSessions = maxSessions;
+        notifyAll();
+    }
+
+    public synchronized int getMaxSessions(){
+        return maxSessions;
+    }
+
+    /**
+     * This method is used to return the amount of sessions owned by the pool, leased or idle.
+     */
+    public synchronized int size(){
+        return driverKeys.size() + pendingSessions;
+    }
+
+    /**
+     * This method is used to return the amount of sessions waiting to be leased.
+     */
+    public synchronized int idleCount(){
+        int count = 0;
+        for (Deque<T> drivers: idleDrivers.values()) count += drivers.size();
+        return count;
+    }
+
+    /**
+     * This method is used to return the amount of sessions with the given key waiting to be leased.
+     */
+    public synchronized int idleCount(String key){
+        Deque<T> drivers = idleDrivers.get(key);
+        return drivers == null ? 0 : drivers.size();
+    }
+
+    /**
+     * This method is used to return the startup and lease times of the sessions, per key.
+     */
+    public StartupMetrics getMetrics(){
+        return metrics;
+    }
+
+    //endregion
+
+    //region Pool Leasing
+
+    /**
+     * This method is used to return the session bound to the current thread.
+     */
+    public T current(){
+        T driver = currentDriver.get();
+        if (driver == null)
+            throw new IllegalStateException(String.format(
+                    "There isn't any driver session bound to the thread %s", Thread.currentThread().getName()));
+        return driver;
+    }
+
+    /**
+     * This method is used to check if the current thread has a session bound.
+     */
+    public boolean hasCurrent(){
+        return currentDriver.get() != null;
+    }
+
+    /**
+     * This method is used to bind to the current thread an idle session with the given key, creating a new one
+     * when there isn't any. When the pool is full the call waits until another thread returns its session.
+     */
+    public T lease(String key, Supplier<T> driverFactory){
+        if (hasCurrent())
+            throw new IllegalStateException(String.format(
+                    "The thread %s already has a driver session bound", Thread.currentThread().getName()));
+        long leaseStart = System.nanoTime();
+        T driver = null;
+        T evicted = null;
+        synchronized (this) {
+            while (driver == null) {
+                Deque<T> idle = idleDrivers.get(key);
+                if (idle != null && !idle.isEmpty()) {
+                    driver = idle.pop();
+                } else if (size() < maxSessions || (evicted = evictIdle()) != null) {
+                    pendingSessions++;
+                    break;
+                } else {
+                    waitForRelease();
+                }
+            }
+        }
+        if (evicted != null) quitQuietly(evicted);
+        boolean warm = driver != null;
+        if (!warm) driver = startSession(key, driverFactory);
+        metrics.recordLease(key, warm, System.nanoTime() - leaseStart);
+        currentDriver.set(driver);
+        return driver;
+    }
+
+    /**
+     * This method is used to start a session with the given key and leave it idle, so a later lease gets it
+     * without waiting for the browser to start. Returns false when the pool is already full.
+     */
+    public boolean prepare(String key, Supplier<T> driverFactory){
+        synchronized (this) {
+            if (size() >= maxSessions) return false;
+            pendingSessions++;
+        }
+        T driver = startSession(key, driverFactory);
+        synchronized (this) {
+            idleDrivers.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(driver);
+            notifyAll();
+        }
+        return true;
+    }
+
+    private T startSession(String key, Supplier<T> driverFactory){
+        long startupStart = System.nanoTime();
+        T driver = null;
+        try {
+            driver = driverFactory.get();
+        } finally {
+            synchronized (this) {
+                pendingSessions--;
+                if (driver != null) driverKeys.put(driver, key);
+                notifyAll();
+            }
+        }
+        metrics.recordStartup(key, System.nanoTime() - startupStart);
+        return driver;
+    }
+
+    /**
+     * This method is used to bind to the current thread a session created outside the pool.
+     */
+    public synchronized void bind(String key, T driver){
+        if (hasCurrent())
+            throw new IllegalStateException(String.format(
+                    "The thread %s already has a driver session bound", Thread.currentThread().getName()));
+        driverKeys.put(driver, key);
+        currentDriver.set(driver);
+    }
+
+    /**
+     * This method is used to return the key of the current thread session, or null when there isn't any.
+     */
+    public synchronized String currentKey(){
+        T driver = currentDriver.get();
+        return driver == null ? null : driverKeys.get(driver);
+    }
+
+    /**
+     * This method is used to return the current thread session to the pool so another thread can reuse it.
+     */
+    public void release(){
+        T driver = current();
+        currentDriver.remove();
+        synchronized (this) {
+            String key = driverKeys.get(driver);
+            idleDrivers.computeIfAbsent(key, k -> new ArrayDeque<>()).push(driver);
+            notifyAll();
+        }
+    }
+
+    /**
+     * This method is used to close the current thread session and remove it from the pool.
+     */
+    public void discard(){
+        T driver = current();
+        currentDriver.remove();
+        synchronized (this) {
+            driverKeys.remove(driver);
+            notifyAll();
+        }
+        ElementCache.remove(driver);
+        driver.quit();
+    }
+
+    /**
+     * This method is used to close every idle session of the pool.
+     */
+    public void shutDownIdle(){
+        List<T> drivers = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<T> idle: idleDrivers.values()) drivers.addAll(idle);
+            idleDrivers.clear();
+            for (T driver: drivers) driverKeys.remove(driver);
+            notifyAll();
+        }
+        for (T driver: drivers) quitQuietly(driver);
+    }
+
+    /**
+     * This method is used to close the idle sessions of the given key, like the sessions of a retired device, so
+     * they don't keep a place in the pool.
+     */
+    public void discardIdle(String key){
+        List<T> drivers;
+        synchronized (this) {
+            Deque<T> idle = idleDrivers.remove(key);
+            drivers = idle == null ? new ArrayList<>() : new ArrayList<>(idle);
+            for (T driver: drivers) driverKeys.remove(driver);
+            notifyAll();
+        }
+        for (T driver: drivers) quitQuietly(driver);
+    }
+
+    private void waitForRelease(){
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The thread was interrupted while waiting for a driver session", e);
+        }
+    }
+
+    private T evictIdle(){
+        for (Deque<T> idle: idleDrivers.values()) {
+            if (!idle.isEmpty()) {
+                T driver = idle.removeLast();
+                driverKeys.remove(driver);
+                return driver;
+            }
+        }
+        return null;
+    }
+
+    private static void quitQuietly(WebDriver driver){
+        ElementCache.remove(driver);
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //endregion
+}
@@ -0,0 +1,112 @@
+package framework;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.internal.Locatable;
+import org.openqa.selenium.internal.WrapsElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * This class is used to keep the elements already found on a driver session, so the same locator is not
+ * resolved again until the page changes. The cached elements hold their driver, so the cache of a session must
+ * be removed when the session is closed.
+ */
+public class ElementCache {
+
+    private static final Map<WebDriver, ElementCache> caches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Object, WebElement> elements = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleElements = new AtomicLong();
+
+    /**
+     * This method is used to return the element cache of a driver session.
+     */
+    public static ElementCache forDriver(WebDriver driver){
+        return caches.computeIfAbsent(driver, d -> new ElementCache());
+    }
+
+    /**
+     * This method is used to remove the cache of a driver session, once the session is closed.
+     */
+    public static void remove(WebDriver driver){
+        caches.remove(driver);
+    }
+
+    /**
+     * This method is used to return the cached element for the key, or to find it and cache it. The returned
+     * element finds itself again and retries once when the page replaced it. A hit only checks that the element
+     * is still on the page, so the key must be a locator; lookups by text or index must not be cached, as the
+     * element may not match them anymore.
+     */
+    public WebElement get(Object key, Supplier<WebElement> finder){
+        WebElement element = elements.get(key);
+        if (element != null) {
+            hits.incrementAndGet();
+            return element;
+        }
+        misses.incrementAndGet();
+        element = (WebElement) Proxy.newProxyInstance(ElementCache.class.getClassLoader(),
+                new Class<?>[]{WebElement.class, WrapsElement.class, Locatable.class},
+                new CachedElementHandler(finder.get(), finder));
+        elements.put(key, element);
+        return element;
+    }
+
+    /**
+     * This method is used to forget every cached element, after a navigation or a frame or window switch.
+     */
+    public void invalidate(){
+        elements.clear();
+    }
+
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    /**
+     * This method is used to return how many times a cached element had to be found again.
+     */
+    public long getStaleElements() { return staleElements.get(); }
+
+    private class CachedElementHandler implements InvocationHandler {
+
+        private final Supplier<WebElement> finder;
+        private WebElement element;
+
+        private CachedElementHandler(WebElement element, Supplier<WebElement> finder){
+            this.element = element;
+            this.finder = finder;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("getWrappedElement".equals(method.getName())) return element;
+            try {
+                return method.invoke(element, args);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof StaleElementReferenceException)) throw e.getCause();
+            }
+            staleElements.incrementAndGet();
+            invalidate();
+            element = finder.get();
+            try {
+                return method.invoke(element, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
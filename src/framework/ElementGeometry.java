@@ -0,0 +1,155 @@
+package framework;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This class is used to keep the position and size of an element together with the viewport it was read from,
+ * so position, scrolling and on-screen checks don't need a round trip each.
+ */
+public class ElementGeometry {
+
+    private static final String READ_GEOMETRY =
+            "var e = (" + ScriptLocator.FIND_ELEMENTS + ")(arguments[0], arguments[1])[0];" +
+            "if (!e) return null;" +
+            ScriptLocator.VISIBLE_TEXT +
+            "var rect = e.getBoundingClientRect();" +
+            "var scrollX = window.pageXOffset, scrollY = window.pageYOffset;" +
+            "return [Math.round(rect.left + scrollX), Math.round(rect.top + scrollY), Math.round(rect.width)," +
+            "    Math.round(rect.height), Math.round(scrollX), Math.round(scrollY)," +
+            "    document.documentElement.clientWidth, document.documentElement.clientHeight, isShown(e)];";
+
+    private static final Map<WebDriver, Dimension> screenSizes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Rectangle rect;
+    private final Rectangle viewport;
+    private final boolean displayed;
+
+    private ElementGeometry(Rectangle rect, Rectangle viewport, boolean displayed){
+        this.rect = rect;
+        this.viewport = viewport;
+        this.displayed = displayed;
+    }
+
+    /**
+     * This method is used to read the geometry of the first element of the locator with a single script call, or
+     * return null when there isn't any.
+     */
+    public static ElementGeometry capture(WebDriver driver, By locator){
+        Object[] locatorArguments = ScriptLocator.toScriptArguments(driver, locator);
+        return read(driver, locatorArguments[0], locatorArguments[1]);
+    }
+
+    /**
+     * This method is used to read the geometry of an element found before with a single script call.
+     */
+    public static ElementGeometry capture(WebDriver driver, WebElement element){
+        return read(driver, Collections.singletonList(element), null);
+    }
+
+    private static ElementGeometry read(WebDriver driver, Object using, Object value){
+        List<?> values = (List<?>) ((JavascriptExecutor) driver).executeScript(READ_GEOMETRY, using, value);
+        if (values == null) return null;
+        Rectangle rect = new Rectangle(toInt(values.get(0)), toInt(values.get(1)), toInt(values.get(3)),
+                toInt(values.get(2)));
+        Rectangle viewport = new Rectangle(toInt(values.get(4)), toInt(values.get(5)), toInt(values.get(7)),
+                toInt(values.get(6)));
+        return new ElementGeometry(rect, viewport, (Boolean) values.get(8));
+    }
+
+    /**
+     * This method is used to build the geometry of a mobile element, whose screen doesn't scroll. The screen size
+     * is read once per driver session and orientation: rotations made directly on the driver, not through
+     * AppiumDriverFacade.rotate, must call invalidateScreenSize.
+     */
+    public static ElementGeometry of(WebDriver driver, Rectangle rect, boolean displayed){
+        Dimension screen = screenSizes.computeIfAbsent(driver, d -> d.manage().window().getSize());
+        return new ElementGeometry(rect, new Rectangle(0, 0, screen.height, screen.width), displayed);
+    }
+
+    /**
+     * This method is used to build the geometry of a mobile element from its rect alone. The element counts as
+     * displayed when it has a size and at least part of it is on the screen, which saves the isDisplayed call but
+     * doesn't see the elements hidden by the app, like transparent or covered ones.
+     */
+    public static ElementGeometry of(WebDriver driver, Rectangle rect){
+        Dimension screen = screenSizes.computeIfAbsent(driver, d -> d.manage().window().getSize());
+        Rectangle viewport = new Rectangle(0, 0, screen.height, screen.width);
+        boolean displayed = rect.width > 0 && rect.height > 0 && rect.x < viewport.width && rect.y < viewport.height
+                && rect.x + rect.width > 0 && rect.y + rect.height > 0;
+        return new ElementGeometry(rect, viewport, displayed);
+    }
+
+    /**
+     * This method is used to discard the screen size read for the driver, so the next mobile geometry reads it
+     * again, like after the screen is rotated.
+     */
+    public static void invalidateScreenSize(WebDriver driver){
+        screenSizes.remove(driver);
+    }
+
+    private static int toInt(Object number){
+        return ((Number) number).intValue();
+    }
+
+    //region Geometry Queries
+
+    /**
+     * This method is used to return the element position on the page and its size.
+     */
+    public Rectangle getRect() { return rect; }
+
+    /**
+     * This method is used to return the visible area of the page, positioned at the scroll offsets.
+     */
+    public Rectangle getViewport() { return viewport; }
+
+    public Point getScrollOffset() { return viewport.getPoint(); }
+
+    public boolean isDisplayed() { return displayed; }
+
+    /**
+     * This method is used to return the element position relative to the top left corner of the viewport.
+     */
+    public Point getViewportLocation(){
+        return new Point(rect.x - viewport.x, rect.y - viewport.y);
+    }
+
+    public Point getCenter(){
+        return new Point(rect.x + rect.width / 2, rect.y + rect.height / 2);
+    }
+
+    /**
+     * This method is used to check if the element is displayed and at least part of it is inside the viewport.
+     */
+    public boolean isInViewport(){
+        return displayed && rect.x < viewport.x + viewport.width && rect.x + rect.width > viewport.x
+                && rect.y < viewport.y + viewport.height && rect.y + rect.height > viewport.y;
+    }
+
+    /**
+     * This method is used to check if the whole element is inside the viewport.
+     */
+    public boolean isFullyInViewport(){
+        return displayed && rect.x >= viewport.x && rect.x + rect.width <= viewport.x + viewport.width
+                && rect.y >= viewport.y && rect.y + rect.height <= viewport.y + viewport.height;
+    }
+
+    //endregion
+
+    @Override
+    public String toString(){
+        return String.format("rect=%d,%d %dx%d viewport=%d,%d %dx%d displayed=%s", rect.x, rect.y, rect.width,
+                rect.height, viewport.x, viewport.y, viewport.width, viewport.height, displayed);
+    }
+}
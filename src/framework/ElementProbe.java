@@ -0,0 +1,216 @@
+package framework;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is used to check if an element is present, visible or enabled without throwing exceptions and
+ * without waiting for the implicit wait, so negative checks answer right away.
+ */
+public class ElementProbe {
+
+    private static final String PROBE_ELEMENT =
+            "var elements = (" + ScriptLocator.FIND_ELEMENTS + ")(arguments[0], arguments[1]);" +
+            ScriptLocator.VISIBLE_TEXT +
+            "var element = null;" +
+            "if (typeof arguments[2] === 'number') element = elements[arguments[2]];" +
+            "else if (typeof arguments[2] === 'string') {" +
+            "  for (var i = 0; i < elements.length && !element; i++)" +
+            "    if (text(elements[i]).indexOf(arguments[2]) >= 0) element = elements[i];" +
+            "} else element = elements[0];" +
+            "return element ? [isShown(element), !element.disabled] : null;";
+
+    private static final Map<WebDriver, Long> implicitWaits = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicLong scriptProbes = new AtomicLong();
+    private static final AtomicLong lookupProbes = new AtomicLong();
+
+    /**
+     * This class is used to keep the answer of a probe.
+     */
+    public static final class State {
+
+        static final State ABSENT = new State(false, false, false);
+
+        private final boolean present;
+        private final boolean displayed;
+        private final boolean enabled;
+
+        State(boolean present, boolean displayed, boolean enabled){
+            this.present = present;
+            this.displayed = displayed;
+            this.enabled = enabled;
+        }
+
+        public boolean isPresent() { return present; }
+
+        public boolean isDisplayed() { return displayed; }
+
+        public boolean isEnabled() { return enabled; }
+    }
+
+    //region Implicit Wait
+
+    /**
+     * This method is used to set the implicit wait of the session, remembering it so the probes can turn it off
+     * and restore it.
+     */
+    public static void setImplicitWait(WebDriver driver, long millis){
+        driver.manage().timeouts().implicitlyWait(millis, TimeUnit.MILLISECONDS);
+        implicitWaits.put(driver, millis);
+    }
+
+    public static long getImplicitWait(WebDriver driver){
+        return implicitWaits.getOrDefault(driver, 0L);
+    }
+
+    /**
+     * This method is used to find the elements of the locator without waiting for the implicit wait. Returns an
+     * empty list when there isn't any.
+     */
+    public static <T extends WebElement> List<T> findElementsNow(WebDriver driver, By locator){
+        long implicitWait = getImplicitWait(driver);
+        if (implicitWait == 0) return castElements(driver.findElements(locator));
+        driver.manage().timeouts().implicitlyWait(0, TimeUnit.MILLISECONDS);
+        try {
+            return castElements(driver.findElements(locator));
+        } finally {
+            driver.manage().timeouts().implicitlyWait(implicitWait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * This method is used to find the elements of the locator inside the given context, like a container
+     * element, without waiting for the implicit wait of the driver session.
+     */
+    public static <T extends WebElement> List<T> findElementsNow(WebDriver driver, SearchContext context, By locator){
+        long implicitWait = getImplicitWait(driver);
+        if (implicitWait == 0) return castElements(context.findElements(locator));
+        driver.manage().timeouts().implicitlyWait(0, TimeUnit.MILLISECONDS);
+        try {
+            return castElements(context.findElements(locator));
+        } finally {
+            driver.manage().timeouts().implicitlyWait(implicitWait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends WebElement> List<T> castElements(List<WebElement> elements){
+        return (List<T>) (List<?>) elements;
+    }
+
+    //endregion
+
+    //region Browser Probes
+
+    /**
+     * This method is used to probe the first element of the locator.
+     */
+    public static State probe(WebDriver driver, By locator){
+        return probe(driver, locator, null);
+    }
+
+    /**
+     * This method is used to probe the element of the locator at the given index.
+     */
+    public static State probe(WebDriver driver, By locator, int index){
+        return probe(driver, locator, (Object) index);
+    }
+
+    /**
+     * This method is used to probe the first element of the locator whose text contains the given text.
+     */
+    public static State probe(WebDriver driver, By locator, String elementText){
+        return probe(driver, locator, (Object) elementText);
+    }
+
+    /**
+     * Locators the browser can resolve take a single script call. Other locators are found first without implicit
+     * wait, which is the slow path counted by getLookupProbes.
+     */
+    private static State probe(WebDriver driver, By locator, Object filter){
+        Object[] locatorArguments;
+        if (ScriptLocator.isSupported(locator)) {
+            scriptProbes.incrementAndGet();
+            locatorArguments = ScriptLocator.toScriptArguments(driver, locator);
+        } else {
+            lookupProbes.incrementAndGet();
+            locatorArguments = new Object[]{findElementsNow(driver, locator), null};
+        }
+        List<?> result;
+        try {
+            result = (List<?>) ((JavascriptExecutor) driver).executeScript(PROBE_ELEMENT,
+                    locatorArguments[0], locatorArguments[1], filter);
+        } catch (StaleElementReferenceException e) {
+            return State.ABSENT;
+        }
+        if (result == null) return State.ABSENT;
+        return new State(true, (Boolean) result.get(0), (Boolean) result.get(1));
+    }
+
+    //region Element Reads
+
+    /**
+     * This method is used to check if a found element is displayed. Returns false when there isn't any element or
+     * it was removed from the screen since it was found.
+     */
+    public static boolean isDisplayed(WebElement element){
+        if (element == null) return false;
+        try {
+            return element.isDisplayed();
+        } catch (StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method is used to check if a found element is enabled. Returns false when there isn't any element or
+     * it was removed from the screen since it was found.
+     */
+    public static boolean isEnabled(WebElement element){
+        if (element == null) return false;
+        try {
+            return element.isEnabled();
+        } catch (StaleElementReferenceException e) {
+            return false;
+        }
+    }
+
+    //endregion
+
+    //region Probe Counters
+
+    /**
+     * This method is used to return how many probes were answered with a single call, a script on the browsers
+     * or a page source on the devices.
+     */
+    public static long getScriptProbes() { return scriptProbes.get(); }
+
+    /**
+     * This method is used to return how many probes had to find the elements first, the slow path.
+     */
+    public static long getLookupProbes() { return lookupProbes.get(); }
+
+    /**
+     * This method is used to count a mobile probe answered from the screen snapshot.
+     */
+    static void countSnapshotProbe() { scriptProbes.incrementAndGet(); }
+
+    /**
+     * This method is used to count a probe that had to find the elements first, like the mobile probes of
+     * locators the page source can't evaluate.
+     */
+    static void countLookupProbe() { lookupProbes.incrementAndGet(); }
+
+    //endregion
+}
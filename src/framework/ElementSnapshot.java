@@ -0,0 +1,98 @@
+package framework;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+
+import java.util.*;
+
+/**
+ * This class is used to keep the state of an element read in bulk with every other element of its locator.
+ */
+public class ElementSnapshot {
+
+    private static final String READ_ELEMENTS =
+            "var elements = (" + ScriptLocator.FIND_ELEMENTS + ")(arguments[0], arguments[1]);" +
+            "var names = arguments[2];" +
+            ScriptLocator.VISIBLE_TEXT +
+            "return elements.map(function(e) {" +
+            "  var rect = e.getBoundingClientRect();" +
+            "  var attributes = {};" +
+            "  names.forEach(function(name) { attributes[name] = e.getAttribute(name); });" +
+            "  var options = e.tagName === 'SELECT' ? Array.prototype.slice.call(e.options)" +
+            "      .filter(function(o) { return o.selected; }).map(text) : null;" +
+            "  return [e.tagName.toLowerCase(), text(e), e.tagName === 'OPTION' ? e.selected : !!e.checked," +
+            "      !!e.checked, isShown(e), Math.round(rect.left + window.pageXOffset)," +
+            "      Math.round(rect.top + window.pageYOffset), Math.round(rect.width), Math.round(rect.height)," +
+            "      attributes, options];" +
+            "});";
+
+    private final String tagName;
+    private final String text;
+    private final boolean selected;
+    private final boolean checked;
+    private final boolean displayed;
+    private final Rectangle rect;
+    private final Map<String, String> attributes;
+    private final List<String> selectedOptions;
+
+    private ElementSnapshot(List<?> values){
+        tagName = (String) values.get(0);
+        text = (String) values.get(1);
+        selected = (Boolean) values.get(2);
+        checked = (Boolean) values.get(3);
+        displayed = (Boolean) values.get(4);
+        rect = new Rectangle(toInt(values.get(5)), toInt(values.get(6)), toInt(values.get(8)), toInt(values.get(7)));
+        attributes = new HashMap<>();
+        for (Map.Entry<?, ?> attribute: ((Map<?, ?>) values.get(9)).entrySet())
+            attributes.put((String) attribute.getKey(), (String) attribute.getValue());
+        selectedOptions = new ArrayList<>();
+        if (values.get(10) != null) for (Object option: (List<?>) values.get(10)) selectedOptions.add((String) option);
+    }
+
+    /**
+     * This method is used to read every element of the locator with a single script call. Only the given
+     * attributes are read, with their raw DOM value.
+     */
+    public static List<ElementSnapshot> capture(WebDriver driver, By locator, String... attributeNames){
+        Object[] locatorArguments = ScriptLocator.toScriptArguments(driver, locator);
+        Object result = ((JavascriptExecutor) driver).executeScript(READ_ELEMENTS,
+                locatorArguments[0], locatorArguments[1], Arrays.asList(attributeNames));
+        List<ElementSnapshot> snapshots = new ArrayList<>();
+        for (Object values: (List<?>) result) snapshots.add(new ElementSnapshot((List<?>) values));
+        return snapshots;
+    }
+
+    private static int toInt(Object number){
+        return ((Number) number).intValue();
+    }
+
+    public String getTagName() { return tagName; }
+
+    /**
+     * This method is used to return the visible text, empty when the element is hidden.
+     */
+    public String getText() { return text; }
+
+    /**
+     * This method is used to return the selected state, like WebElement.isSelected.
+     */
+    public boolean isSelected() { return selected; }
+
+    public boolean isChecked() { return checked; }
+
+    public boolean isDisplayed() { return displayed; }
+
+    /**
+     * This method is used to return the element position on the page and its size.
+     */
+    public Rectangle getRect() { return rect; }
+
+    public String getAttribute(String name) { return attributes.get(name); }
+
+    /**
+     * This method is used to return the texts of the selected options when the element is a select.
+     */
+    public List<String> getSelectedOptions() { return selectedOptions; }
+}
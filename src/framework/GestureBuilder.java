@@ -0,0 +1,215 @@
+package framework;
+
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Interactive;
+import org.openqa.selenium.interactions.Pause;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used to queue touch gestures as W3C pointer actions and to send all of them in a single perform
+ * call. Gestures run one after the other; multi-finger gestures move every finger at the same time.
+ */
+public class GestureBuilder {
+
+    private static final Duration LONG_PRESS = Duration.ofMillis(1000);
+
+    private final Interactive driver;
+    private final List<Finger> fingers = new ArrayList<>();
+    private int ticks;
+
+    public GestureBuilder(Interactive driver){
+        this.driver = driver;
+    }
+
+    //region Gestures
+
+    /**
+     * This method is used to tap on the center of the element, without reading its position.
+     */
+    public GestureBuilder tap(WebElement element){
+        Finger finger = finger(0);
+        finger.moveTo(element, 0, 0, Duration.ZERO).down().up();
+        return align();
+    }
+
+    /**
+     * This method is used to tap on a screen point.
+     */
+    public GestureBuilder tap(int x, int y){
+        Finger finger = finger(0);
+        finger.moveTo(x, y, Duration.ZERO).down().up();
+        return align();
+    }
+
+    /**
+     * This method is used to tap on a point relative to the element top left corner. The element position is
+     * read once.
+     */
+    public GestureBuilder tap(WebElement element, int xOffset, int yOffset){
+        Point location = element.getRect().getPoint();
+        return tap(location.x + xOffset, location.y + yOffset);
+    }
+
+    /**
+     * This method is used to press the center of the element for a second.
+     */
+    public GestureBuilder longPress(WebElement element){
+        return longPress(element, LONG_PRESS);
+    }
+
+    public GestureBuilder longPress(WebElement element, Duration duration){
+        Finger finger = finger(0);
+        finger.moveTo(element, 0, 0, Duration.ZERO).down().pause(duration).up();
+        return align();
+    }
+
+    public GestureBuilder longPress(int x, int y, Duration duration){
+        Finger finger = finger(0);
+        finger.moveTo(x, y, Duration.ZERO).down().pause(duration).up();
+        return align();
+    }
+
+    /**
+     * This method is used to press a screen point and move the finger to another point in the given time.
+     */
+    public GestureBuilder swipe(int fromX, int fromY, int toX, int toY, Duration duration){
+        Finger finger = finger(0);
+        finger.moveTo(fromX, fromY, Duration.ZERO).down().moveTo(toX, toY, duration).up();
+        return align();
+    }
+
+    /**
+     * This method is used to press the center of an element and move the finger to the center of another one in
+     * the given time, without reading their positions.
+     */
+    public GestureBuilder swipe(WebElement fromElement, WebElement toElement, Duration duration){
+        Finger finger = finger(0);
+        finger.moveTo(fromElement, 0, 0, Duration.ZERO).down().moveTo(toElement, 0, 0, duration).up();
+        return align();
+    }
+
+    /**
+     * This method is used to long press an element and drop it on the center of another element.
+     */
+    public GestureBuilder dragAndDrop(WebElement dragElement, WebElement dropElement){
+        Finger finger = finger(0);
+        finger.moveTo(dragElement, 0, 0, Duration.ZERO).down().pause(LONG_PRESS)
+                .moveTo(dropElement, 0, 0, Duration.ofMillis(500)).up();
+        return align();
+    }
+
+    /**
+     * This method is used to move two fingers from the given distance of the element center to its center.
+     */
+    public GestureBuilder pinch(WebElement element, int distance, Duration duration){
+        Rectangle rect = element.getRect();
+        int x = rect.x + rect.width / 2;
+        int y = rect.y + rect.height / 2;
+        return twoFingers(x, y, distance, 0, duration);
+    }
+
+    /**
+     * This method is used to move two fingers from the element center to the given distance of it.
+     */
+    public GestureBuilder zoom(WebElement element, int distance, Duration duration){
+        Rectangle rect = element.getRect();
+        int x = rect.x + rect.width / 2;
+        int y = rect.y + rect.height / 2;
+        return twoFingers(x, y, 0, distance, duration);
+    }
+
+    private GestureBuilder twoFingers(int x, int y, int fromDistance, int toDistance, Duration duration){
+        finger(0).moveTo(x, y - fromDistance, Duration.ZERO).down().moveTo(x, y - toDistance, duration).up();
+        finger(1).moveTo(x, y + fromDistance, Duration.ZERO).down().moveTo(x, y + toDistance, duration).up();
+        return align();
+    }
+
+    /**
+     * This method is used to wait between two gestures.
+     */
+    public GestureBuilder pause(Duration duration){
+        finger(0).pause(duration);
+        return align();
+    }
+
+    //endregion
+
+    /**
+     * This method is used to send every queued gesture in a single call and to empty the queue.
+     */
+    public void perform(){
+        if (fingers.isEmpty()) return;
+        List<Sequence> sequences = new ArrayList<>();
+        for (Finger finger: fingers) sequences.add(finger.sequence);
+        driver.perform(sequences);
+        fingers.clear();
+        ticks = 0;
+    }
+
+    private Finger finger(int index){
+        while (fingers.size() <= index) {
+            Finger finger = new Finger("finger" + (fingers.size() + 1));
+            while (finger.ticks < ticks) finger.pause(Duration.ZERO);
+            fingers.add(finger);
+        }
+        return fingers.get(index);
+    }
+
+    /**
+     * The fingers that didn't take part in the last gesture wait until it ends, so the next one starts after it.
+     */
+    private GestureBuilder align(){
+        for (Finger finger: fingers) ticks = Math.max(ticks, finger.ticks);
+        for (Finger finger: fingers) while (finger.ticks < ticks) finger.pause(Duration.ZERO);
+        return this;
+    }
+
+    private static class Finger {
+
+        private final PointerInput input;
+        private final Sequence sequence;
+        private int ticks;
+
+        private Finger(String name){
+            input = new PointerInput(PointerInput.Kind.TOUCH, name);
+            sequence = new Sequence(input, 0);
+        }
+
+        private Finger moveTo(int x, int y, Duration duration){
+            sequence.addAction(input.createPointerMove(duration, PointerInput.Origin.viewport(), x, y));
+            ticks++;
+            return this;
+        }
+
+        private Finger moveTo(WebElement element, int xOffset, int yOffset, Duration duration){
+            sequence.addAction(input.createPointerMove(duration, PointerInput.Origin.fromElement(element), xOffset, yOffset));
+            ticks++;
+            return this;
+        }
+
+        private Finger down(){
+            sequence.addAction(input.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+            ticks++;
+            return this;
+        }
+
+        private Finger up(){
+            sequence.addAction(input.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+            ticks++;
+            return this;
+        }
+
+        private Finger pause(Duration duration){
+            sequence.addAction(new Pause(input, duration));
+            ticks++;
+            return this;
+        }
+    }
+}
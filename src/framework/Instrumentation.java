@@ -0,0 +1,232 @@
+package framework;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is used to record how long the facade methods, the driver commands, the post condition waits, the
+ * fixed pauses and the navigations until the page is ready take. The histograms are created once per name, after
+ * that recording doesn't allocate.
+ */
+public class Instrumentation {
+
+    private static final Map<String, LatencyHistogram> facadeMethods = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> timeToReady = new ConcurrentHashMap<>();
+    private static final LatencyHistogram postConditionWaits = new LatencyHistogram();
+    private static final LatencyHistogram pauses = new LatencyHistogram();
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+    private static volatile boolean enabled = true;
+
+    //region Recording
+
+    public static void setEnabled(boolean enable) { enabled = enable; }
+
+    public static boolean isEnabled() { return enabled; }
+
+    /**
+     * This method is used to record a facade method that started at the given System.nanoTime value.
+     */
+    public static void recordFacadeMethod(String method, long startNanos){
+        if (enabled) histogram(facadeMethods, method).recordSince(startNanos);
+    }
+
+    /**
+     * This method is used to record a driver command, like findElement or click, that started at the given
+     * System.nanoTime value.
+     */
+    public static void recordCommand(String command, long startNanos){
+        if (enabled) histogram(commands, command).recordSince(startNanos);
+    }
+
+    /**
+     * This method is used to record the time an action waited for its post condition.
+     */
+    public static void recordPostConditionWait(long startNanos){
+        if (enabled) postConditionWaits.recordSince(startNanos);
+    }
+
+    /**
+     * This method is used to record the time from the start of a navigation until the page was ready, per page.
+     */
+    public static void recordTimeToReady(String page, long startNanos){
+        if (enabled) histogram(timeToReady, page).recordSince(startNanos);
+    }
+
+    /**
+     * This method is used to record the time spent on a deliberate pause.
+     */
+    public static void recordPause(long nanos){
+        if (enabled) pauses.record(nanos);
+    }
+
+    /**
+     * This method is used to make the driver record every command it sends. Drivers that don't send their commands
+     * through a command executor are returned as they are.
+     */
+    public static <T extends WebDriver> T instrument(T driver){
+        if (!(driver instanceof RemoteWebDriver)) return driver;
+        RemoteWebDriver remoteDriver = (RemoteWebDriver) driver;
+        if (remoteDriver.getCommandExecutor() instanceof TimedCommandExecutor) return driver;
+        try {
+            Method setter = RemoteWebDriver.class.getDeclaredMethod("setCommandExecutor", CommandExecutor.class);
+            setter.setAccessible(true);
+            setter.invoke(remoteDriver, new TimedCommandExecutor(remoteDriver.getCommandExecutor()));
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("The driver commands couldn't be instrumented", e);
+        }
+        return driver;
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String name){
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    //endregion
+
+    //region Reports
+
+    public static Map<String, LatencyHistogram> getFacadeMethods(){
+        return Collections.unmodifiableMap(new TreeMap<>(facadeMethods));
+    }
+
+    public static Map<String, LatencyHistogram> getCommands(){
+        return Collections.unmodifiableMap(new TreeMap<>(commands));
+    }
+
+    /**
+     * This method is used to return the time to ready of every page, by origin and path.
+     */
+    public static Map<String, LatencyHistogram> getTimeToReady(){
+        return Collections.unmodifiableMap(new TreeMap<>(timeToReady));
+    }
+
+    public static LatencyHistogram getPostConditionWaits() { return postConditionWaits; }
+
+    public static LatencyHistogram getPauses() { return pauses; }
+
+    /**
+     * This method is used to forget every recorded latency.
+     */
+    public static void reset(){
+        facadeMethods.clear();
+        commands.clear();
+        timeToReady.clear();
+        postConditionWaits.reset();
+        pauses.reset();
+    }
+
+    /**
+     * This method is used to write every histogram on a JSON file.
+     */
+    public static void exportJson(Path file){
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\n  \"facadeMethods\": ");
+            writeJson(writer, getFacadeMethods());
+            writer.write(",\n  \"commands\": ");
+            writeJson(writer, getCommands());
+            writer.write(",\n  \"timeToReady\": ");
+            writeJson(writer, getTimeToReady());
+            writer.write(",\n  \"postConditionWaits\": " + toJson(postConditionWaits));
+            writer.write(",\n  \"pauses\": " + toJson(pauses) + "\n}\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The metrics couldn't be written on %s", file), e);
+        }
+    }
+
+    /**
+     * This method is used to write every histogram on a CSV file, one row per facade method, command, page or wait.
+     */
+    public static void exportCsv(Path file){
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("type,name,count,totalMs,avgMs,p50Ms,p90Ms,p99Ms,maxMs\n");
+            for (Map.Entry<String, LatencyHistogram> entry: getFacadeMethods().entrySet())
+                writer.write(toCsv("facade", entry.getKey(), entry.getValue()));
+            for (Map.Entry<String, LatencyHistogram> entry: getCommands().entrySet())
+                writer.write(toCsv("command", entry.getKey(), entry.getValue()));
+            for (Map.Entry<String, LatencyHistogram> entry: getTimeToReady().entrySet())
+                writer.write(toCsv("navigation", entry.getKey(), entry.getValue()));
+            writer.write(toCsv("wait", "postCondition", postConditionWaits));
+            writer.write(toCsv("wait", "pause", pauses));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The metrics couldn't be written on %s", file), e);
+        }
+    }
+
+    private static void writeJson(Writer writer, Map<String, LatencyHistogram> histograms) throws IOException {
+        writer.write("{");
+        String separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> entry: histograms.entrySet()) {
+            writer.write(separator + "    " + gson.toJson(entry.getKey()) + ": " + toJson(entry.getValue()));
+            separator = ",\n";
+        }
+        writer.write(histograms.isEmpty() ? "}" : "\n  }");
+    }
+
+    private static String toJson(LatencyHistogram histogram){
+        return String.format(Locale.ROOT, "{\"count\": %d, \"totalMs\": %.3f, \"avgMs\": %.3f, \"p50Ms\": %.3f, " +
+                        "\"p90Ms\": %.3f, \"p99Ms\": %.3f, \"maxMs\": %.3f}", histogram.getCount(),
+                histogram.getTotalMillis(), histogram.getAverageMillis(), histogram.getPercentileMillis(50),
+                histogram.getPercentileMillis(90), histogram.getPercentileMillis(99), histogram.getMaxMillis());
+    }
+
+    private static String toCsv(String type, String name, LatencyHistogram histogram){
+        return String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n", type, toCsvField(name),
+                histogram.getCount(), histogram.getTotalMillis(), histogram.getAverageMillis(),
+                histogram.getPercentileMillis(50), histogram.getPercentileMillis(90),
+                histogram.getPercentileMillis(99), histogram.getMaxMillis());
+    }
+
+    /**
+     * The names are page URLs and scenario names, so the ones with commas, quotes or line breaks are quoted.
+     */
+    private static String toCsvField(String value){
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    //endregion
+
+    private static class TimedCommandExecutor implements CommandExecutor {
+
+        private final CommandExecutor executor;
+
+        private TimedCommandExecutor(CommandExecutor executor){
+            this.executor = executor;
+        }
+
+        @Override
+        public Response execute(Command command) throws IOException {
+            long start = System.nanoTime();
+            Response response = null;
+            try {
+                response = executor.execute(command);
+                return response;
+            } finally {
+                recordCommand(command.getName(), start);
+                CommandLog.record(command, response, start);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package framework;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is used to count latencies in power of two buckets of nanoseconds. Recording a latency doesn't
+ * allocate any object, so it can be used on every command.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * This method is used to record a latency.
+     */
+    public void record(long nanos){
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(Math.max(0, BUCKETS - 1 - Long.numberOfLeadingZeros(nanos)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+    }
+
+    /**
+     * This method is used to record the time passed since the given System.nanoTime value.
+     */
+    public void recordSince(long startNanos){
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() { return count.get(); }
+
+    public long getTotalNanos() { return totalNanos.get(); }
+
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    public double getTotalMillis() { return toMillis(totalNanos.get()); }
+
+    public double getAverageMillis(){
+        long recorded = count.get();
+        return recorded == 0 ? 0 : toMillis(totalNanos.get()) / recorded;
+    }
+
+    public double getMaxMillis() { return toMillis(maxNanos.get()); }
+
+    /**
+     * This method is used to return the upper bound in milliseconds of the bucket holding the given percentile,
+     * between 0 and 100. The value is at most twice the real one.
+     */
+    public double getPercentileMillis(double percentile){
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException(String.format("The percentile %s is not valid", percentile));
+        long recorded = count.get();
+        if (recorded == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(recorded * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) return Math.min(toMillis(i >= 62 ? Long.MAX_VALUE : (2L << i) - 1), getMaxMillis());
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * This method is used to forget every recorded latency.
+     */
+    public void reset(){
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    private static double toMillis(long nanos){
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
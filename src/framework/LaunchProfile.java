@@ -0,0 +1,187 @@
+package framework;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.remote.CapabilityType;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * This class is used to decide how the browsers are launched, so the CI machines can run more browsers at the
+ * same time. The profiles are immutable, every with method returns a new profile.
+ */
+public final class LaunchProfile {
+
+    private final String name;
+    private final boolean headless;
+    private final boolean disableGpu;
+    private final boolean blockImages;
+    private final boolean reduceBackgroundNetworking;
+    private final boolean disableSharedMemory;
+    private final String profileDirectory;
+    private final ResourcePolicy resourcePolicy;
+    private final PageLoadStrategy pageLoadStrategy;
+
+    private LaunchProfile(String name, boolean headless, boolean disableGpu, boolean blockImages,
+                          boolean reduceBackgroundNetworking, boolean disableSharedMemory, String profileDirectory,
+                          ResourcePolicy resourcePolicy, PageLoadStrategy pageLoadStrategy){
+        this.name = name;
+        this.headless = headless;
+        this.disableGpu = disableGpu;
+        this.blockImages = blockImages;
+        this.reduceBackgroundNetworking = reduceBackgroundNetworking;
+        this.disableSharedMemory = disableSharedMemory;
+        this.profileDirectory = profileDirectory;
+        this.resourcePolicy = resourcePolicy;
+        this.pageLoadStrategy = pageLoadStrategy;
+    }
+
+    //region Profiles
+
+    /**
+     * This method is used to launch a headed browser with its default settings.
+     */
+    public static LaunchProfile standard(){
+        return new LaunchProfile("STANDARD", false, false, false, false, false, null,
+                ResourcePolicy.none(), PageLoadStrategy.NORMAL);
+    }
+
+    /**
+     * This method is used to launch a browser without window and without GPU.
+     */
+    public static LaunchProfile headless(){
+        return new LaunchProfile("HEADLESS", true, true, false, false, false, null,
+                ResourcePolicy.none(), PageLoadStrategy.NORMAL);
+    }
+
+    /**
+     * This method is used to launch a headless browser that doesn't load images, doesn't make background requests
+     * and writes its shared memory to disk, for machines with a small /dev/shm.
+     */
+    public static LaunchProfile lowOverhead(){
+        return new LaunchProfile("LOW_OVERHEAD", true, true, true, true, true, null,
+                ResourcePolicy.none(), PageLoadStrategy.NORMAL);
+    }
+
+    /**
+     * This method is used to return the profile with the given name: STANDARD, HEADLESS or LOW_OVERHEAD.
+     */
+    public static LaunchProfile named(String name){
+        switch (name.toUpperCase()){
+            case "STANDARD":
+                return standard();
+            case "HEADLESS":
+                return headless();
+            case "LOW_OVERHEAD":
+                return lowOverhead();
+            default:
+                throw new IllegalArgumentException(String.format("The launch profile %s is not supported", name));
+        }
+    }
+
+    /**
+     * This method is used to return a copy of the profile that uses always the same browser profile directory,
+     * so the browser doesn't create and populate a new one on every launch.
+     */
+    public LaunchProfile withProfileDirectory(String profileDirectory){
+        return new LaunchProfile(name, headless, disableGpu, blockImages, reduceBackgroundNetworking,
+                disableSharedMemory, profileDirectory, resourcePolicy, pageLoadStrategy);
+    }
+
+    public LaunchProfile withImagesBlocked(boolean blockImages){
+        return new LaunchProfile(name, headless, disableGpu, blockImages, reduceBackgroundNetworking,
+                disableSharedMemory, profileDirectory, resourcePolicy, pageLoadStrategy);
+    }
+
+    /**
+     * This method is used to return a copy of the profile that doesn't download the resources of the policy, like
+     * images, web fonts, video or analytics. The policy is applied when the session is created.
+     */
+    public LaunchProfile withResourcePolicy(ResourcePolicy resourcePolicy){
+        return new LaunchProfile(name, headless, disableGpu, blockImages, reduceBackgroundNetworking,
+                disableSharedMemory, profileDirectory, resourcePolicy, pageLoadStrategy);
+    }
+
+    /**
+     * This method is used to return a copy of the profile whose navigations return when the DOM is parsed, EAGER,
+     * or right away, NONE, instead of waiting for every resource. The facades then wait for the navigation
+     * readiness, see WebDriverFacade.setNavigationReadiness.
+     */
+    public LaunchProfile withPageLoadStrategy(PageLoadStrategy pageLoadStrategy){
+        return new LaunchProfile(name, headless, disableGpu, blockImages, reduceBackgroundNetworking,
+                disableSharedMemory, profileDirectory, resourcePolicy, pageLoadStrategy);
+    }
+
+    //endregion
+
+    //region Browser Options
+
+    /**
+     * This method is used to add the profile arguments and preferences to the Chrome options.
+     */
+    public void applyTo(ChromeOptions options, Map<String, Object> preferences){
+        if (headless) options.addArguments("--headless");
+        if (disableGpu) options.addArguments("--disable-gpu");
+        if (blockImages) {
+            options.addArguments("--blink-settings=imagesEnabled=false");
+            preferences.put("profile.managed_default_content_settings.images", 2);
+        }
+        if (reduceBackgroundNetworking)
+            options.addArguments("--disable-background-networking", "--disable-component-update",
+                    "--disable-default-apps", "--disable-sync", "--metrics-recording-only", "--no-first-run");
+        if (disableSharedMemory) options.addArguments("--disable-dev-shm-usage");
+        if (profileDirectory != null) options.addArguments("--user-data-dir=" + profileDirectory);
+        options.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, pageLoadStrategy.toString());
+    }
+
+    /**
+     * This method is used to add the profile arguments and preferences to the Firefox options.
+     */
+    public void applyTo(FirefoxOptions options){
+        if (profileDirectory != null) options.setProfile(new FirefoxProfile(new File(profileDirectory)));
+        options.setHeadless(headless);
+        if (disableGpu) options.addPreference("layers.acceleration.disabled", true);
+        if (blockImages) options.addPreference("permissions.default.image", 2);
+        if (reduceBackgroundNetworking) {
+            options.addPreference("network.prefetch-next", false);
+            options.addPreference("app.update.auto", false);
+            options.addPreference("browser.safebrowsing.malware.enabled", false);
+            options.addPreference("browser.safebrowsing.phishing.enabled", false);
+            options.addPreference("datareporting.healthreport.uploadEnabled", false);
+            options.addPreference("toolkit.telemetry.enabled", false);
+        }
+        resourcePolicy.applyTo(options);
+        options.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, pageLoadStrategy.toString());
+    }
+
+    //endregion
+
+    public String getName() { return name; }
+
+    public boolean isHeadless() { return headless; }
+
+    public String getProfileDirectory() { return profileDirectory; }
+
+    public ResourcePolicy getResourcePolicy() { return resourcePolicy; }
+
+    public PageLoadStrategy getPageLoadStrategy() { return pageLoadStrategy; }
+
+    /**
+     * This method is used to return a key with every setting of the profile, so sessions launched with different
+     * settings are never reused for each other.
+     */
+    public String getKey(){
+        return String.format("%s[%s%s%s%s%s%s]%s%s", name, headless ? "h" : "", disableGpu ? "g" : "",
+                blockImages ? "i" : "", reduceBackgroundNetworking ? "n" : "", disableSharedMemory ? "s" : "",
+                profileDirectory == null ? "" : ":" + profileDirectory, resourcePolicy.getKey(),
+                pageLoadStrategy == PageLoadStrategy.NORMAL ? "" : "/" + pageLoadStrategy);
+    }
+
+    @Override
+    public String toString(){
+        return getKey();
+    }
+}
@@ -0,0 +1,44 @@
+package framework;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This interface is used to decide how long the wait engine sleeps between two checks of a condition.
+ */
+public interface PollingStrategy {
+
+    /**
+     * This method is used to return the milliseconds to sleep before the given check attempt, starting at one.
+     */
+    long nextDelayMillis(int attempt);
+
+    /**
+     * This method is used to poll with the same delay between every check.
+     */
+    static PollingStrategy fixed(long delayMillis){
+        if (delayMillis <= 0) throw new IllegalArgumentException("The polling delay must be greater than zero");
+        return attempt -> delayMillis;
+    }
+
+    /**
+     * This method is used to poll fast at first and double the delay after every check up to a maximum.
+     */
+    static PollingStrategy exponential(long initialDelayMillis, long maxDelayMillis){
+        if (initialDelayMillis <= 0 || maxDelayMillis < initialDelayMillis)
+            throw new IllegalArgumentException(String.format(
+                    "The polling delays %d and %d are not valid", initialDelayMillis, maxDelayMillis));
+        return attempt -> {
+            long delay = initialDelayMillis << Math.min(attempt - 1, 30);
+            return delay <= 0 || delay > maxDelayMillis ? maxDelayMillis : delay;
+        };
+    }
+
+    /**
+     * This method is used to poll with an exponential delay where every delay is picked at random between the
+     * initial delay and the exponential one, so many sessions polling the same server don't poll at the same time.
+     */
+    static PollingStrategy jittered(long initialDelayMillis, long maxDelayMillis){
+        PollingStrategy exponential = exponential(initialDelayMillis, maxDelayMillis);
+        return attempt -> ThreadLocalRandom.current().nextLong(initialDelayMillis, exponential.nextDelayMillis(attempt) + 1);
+    }
+}
@@ -0,0 +1,227 @@
+package framework;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.WrapsElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * This interface is used to decide when an action has settled, so the facades stop waiting before the
+ * seconds to wait are over.
+ */
+public interface PostCondition {
+
+    /**
+     * This constant is used to wait the full seconds to wait, see pause. The facades don't report its waits as
+     * timeouts.
+     */
+    PostCondition PAUSE = (driver, target) -> d -> false;
+
+    /**
+     * This method is used to capture the state needed before the action runs and to return the condition that
+     * must hold after it. The target is the element the action is performed on, or null for browser actions.
+     */
+    Function<WebDriver, ?> prepare(WebDriver driver, WebElement target);
+
+    /**
+     * This method is used to wait the full seconds to wait, as a fixed pause.
+     */
+    static PostCondition pause(){
+        return PAUSE;
+    }
+
+    /**
+     * This method is used to wait the given milliseconds after the action, without any call to the driver. It
+     * fits the drivers that already wait for the app to be idle before answering an action, like UiAutomator2 and
+     * XCUITest, so the screen only needs a moment to finish its animations.
+     */
+    static PostCondition delay(long millis){
+        return (driver, target) -> {
+            final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            return d -> System.nanoTime() >= end;
+        };
+    }
+
+    /**
+     * This method is used to wait until the page is loaded and the DOM has not changed for the given milliseconds.
+     * The observer is installed and its clock reset before the action, so the quiet time only counts mutations
+     * and time after the action started. Pages loaded by the action get their own observer on the first check.
+     */
+    static PostCondition domQuiet(long quietMillis){
+        final String observe =
+                "var w = window;" +
+                "if (!w.__frameworkLastMutation) {" +
+                "  new MutationObserver(function() { w.__frameworkLastMutation = Date.now(); })" +
+                "    .observe(document, {childList: true, subtree: true, attributes: true, characterData: true});" +
+                "}" +
+                "w.__frameworkLastMutation = Date.now();";
+        final String script =
+                "var w = window;" +
+                "if (!w.__frameworkLastMutation) {" +
+                "  w.__frameworkLastMutation = Date.now();" +
+                "  new MutationObserver(function() { w.__frameworkLastMutation = Date.now(); })" +
+                "    .observe(document, {childList: true, subtree: true, attributes: true, characterData: true});" +
+                "}" +
+                "return document.readyState === 'complete' ? Date.now() - w.__frameworkLastMutation : -1;";
+        return (driver, target) -> {
+            try {
+                ((JavascriptExecutor) driver).executeScript(observe);
+            } catch (WebDriverException e) {
+                // The page can't run scripts right now, like an alert is open, so the first check installs it
+            }
+            return d -> {
+                Number quietTime = (Number) ((JavascriptExecutor) d).executeScript(script);
+                return quietTime != null && quietTime.longValue() >= quietMillis;
+            };
+        };
+    }
+
+    /**
+     * This method is used to wait until the document reaches the given ready state: interactive, when the DOM is
+     * parsed, or complete, when every resource is loaded.
+     */
+    static PostCondition documentReady(String readyState){
+        final String state = readyState.toLowerCase();
+        if (!state.equals("interactive") && !state.equals("complete"))
+            throw new IllegalArgumentException(String.format("The ready state %s is not supported", readyState));
+        return (driver, target) -> d -> {
+            Object current = ((JavascriptExecutor) d).executeScript("return document.readyState;");
+            return "complete".equals(current) || state.equals(current);
+        };
+    }
+
+    /**
+     * This method is used to wait until the page has no XHR or fetch request pending and no resource finished
+     * loading for the given milliseconds.
+     */
+    static PostCondition networkIdle(long idleMillis){
+        final String script =
+                "var w = window;" +
+                "if (!w.__frameworkRequests) {" +
+                "  var requests = w.__frameworkRequests = {pending: 0, last: Date.now()};" +
+                "  var done = function() { requests.pending--; requests.last = Date.now(); };" +
+                "  var send = XMLHttpRequest.prototype.send;" +
+                "  XMLHttpRequest.prototype.send = function() {" +
+                "    requests.pending++; this.addEventListener('loadend', done); return send.apply(this, arguments);" +
+                "  };" +
+                "  if (w.fetch) {" +
+                "    var fetch = w.fetch;" +
+                "    w.fetch = function() {" +
+                "      requests.pending++;" +
+                "      return fetch.apply(this, arguments).then(function(r) { done(); return r; }," +
+                "          function(e) { done(); throw e; });" +
+                "    };" +
+                "  }" +
+                "}" +
+                "if (document.readyState === 'loading' || w.__frameworkRequests.pending > 0) return -1;" +
+                "var last = w.__frameworkRequests.last;" +
+                "performance.getEntriesByType('resource').forEach(function(r) {" +
+                "  last = Math.max(last, performance.timing.navigationStart + r.responseEnd);" +
+                "});" +
+                "return Date.now() - last;";
+        return (driver, target) -> d -> {
+            Number idleTime = (Number) ((JavascriptExecutor) d).executeScript(script);
+            return idleTime != null && idleTime.longValue() >= idleMillis;
+        };
+    }
+
+    /**
+     * This method is used to wait until the given script returns true, like a hook of the page framework that
+     * tells when it is idle.
+     */
+    static PostCondition scriptReturnsTrue(String script){
+        return (driver, target) -> d -> Boolean.TRUE.equals(((JavascriptExecutor) d).executeScript(script));
+    }
+
+    /**
+     * This method is used to wait until the target element is removed from the page. Browser actions without
+     * target wait until the DOM is quiet.
+     */
+    static PostCondition elementStale(){
+        PostCondition withoutTarget = domQuiet(300);
+        return (driver, target) -> {
+            if (target == null) return withoutTarget.prepare(driver, null);
+            WebElement element = target instanceof WrapsElement ? ((WrapsElement) target).getWrappedElement() : target;
+            return ExpectedConditions.stalenessOf(element);
+        };
+    }
+
+    /**
+     * This method is used to wait until the current URL is different from the URL before the action.
+     */
+    static PostCondition urlChanged(){
+        return (driver, target) -> {
+            String previousUrl = driver.getCurrentUrl();
+            return d -> !previousUrl.equals(d.getCurrentUrl());
+        };
+    }
+
+    /**
+     * This method is used to wait until no element of the locator is visible, like a loading spinner.
+     */
+    static PostCondition invisibilityOf(By locator){
+        return (driver, target) -> ExpectedConditions.invisibilityOfElementLocated(locator);
+    }
+
+    /**
+     * This method is used to wait until the page source is the same on two consecutive checks, after it changed
+     * from the source before the action or after half a second, for actions that don't change the screen. Every
+     * check reads the whole screen, which can take seconds on large screens, so it is only worth it for apps
+     * whose driver doesn't wait for the app to be idle.
+     */
+    static PostCondition pageSourceStable(){
+        return pageSourceStable(500);
+    }
+
+    /**
+     * This method is used to wait until the page source is the same on two consecutive checks. The source before
+     * the action is captured first, so a screen that didn't start changing yet doesn't count as stable: the
+     * checks only start to count once the source changed or the given settle milliseconds are over.
+     */
+    static PostCondition pageSourceStable(long settleMillis){
+        return (driver, target) -> {
+            final int initialHash = driver.getPageSource().hashCode();
+            final long settleEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settleMillis);
+            return new Function<WebDriver, Boolean>() {
+                private int previousHash = initialHash;
+                private boolean changed;
+                private boolean checked;
+
+                @Override
+                public Boolean apply(WebDriver d) {
+                    int hash = d.getPageSource().hashCode();
+                    boolean stable = checked && hash == previousHash;
+                    if (hash != initialHash) changed = true;
+                    previousHash = hash;
+                    checked = true;
+                    return stable && (changed || System.nanoTime() >= settleEnd);
+                }
+            };
+        };
+    }
+
+    /**
+     * This method is used to wait until every one of the given post conditions holds.
+     */
+    static PostCondition allOf(PostCondition... postConditions){
+        return (driver, target) -> {
+            List<Function<WebDriver, ?>> conditions = new ArrayList<>();
+            for (PostCondition postCondition: postConditions) conditions.add(postCondition.prepare(driver, target));
+            return d -> {
+                for (Function<WebDriver, ?> condition: conditions) {
+                    Object value = condition.apply(d);
+                    if (value == null || Boolean.FALSE.equals(value)) return false;
+                }
+                return true;
+            };
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package framework;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is used to apply a resource policy to a Chrome session through the DevTools protocol of its driver
+ * server, and to count on every page the requests that were blocked and the ones that were served.
+ */
+public class ResourceInterceptor {
+
+    private static final Map<WebDriver, ResourceInterceptor> interceptors =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Gson gson = new Gson();
+
+    private static final String READ_RESOURCES =
+            "var patterns = arguments[0].map(function(p) {" +
+            "  return new RegExp('^' + p.replace(/[.+^${}()|[\\]\\\\?]/g, '\\\\$&').replace(/\\*/g, '.*') + '$');" +
+            "});" +
+            "var blocked = function(url) { return patterns.some(function(p) { return p.test(url); }); };" +
+            "var urls = {}, served = 0, bytes = 0;" +
+            "performance.getEntriesByType('resource').forEach(function(r) {" +
+            "  if (blocked(r.name)) urls[r.name] = true;" +
+            "  else { served++; bytes += r.transferSize || 0; }" +
+            "});" +
+            "Array.prototype.forEach.call(document.querySelectorAll('img[src], script[src], link[href], source[src]," +
+            "    video[src], audio[src], iframe[src]'), function(e) {" +
+            "  var url = e.src || e.href;" +
+            "  if (url && blocked(url)) urls[url] = true;" +
+            "});" +
+            "return [location.href, Object.keys(urls).length, served, bytes];";
+
+    private final ResourcePolicy policy;
+    private final Map<String, PageStats> pages = new ConcurrentHashMap<>();
+
+    private ResourceInterceptor(ResourcePolicy policy){
+        this.policy = policy;
+    }
+
+    /**
+     * This method is used to block the resources of the policy on a Chrome session. The commands are sent
+     * straight to the driver server at the given URL, which runs them on the DevTools protocol of the browser.
+     */
+    public static void install(RemoteWebDriver driver, URL driverServer, ResourcePolicy policy){
+        if (policy.isEmpty()) return;
+        DevToolsClient devTools = DevToolsClient.forDriver(driver);
+        if (devTools == null) devTools = DevToolsClient.register(driver, driverServer);
+        devTools.execute("Network.enable", new JsonObject());
+        JsonObject parameters = new JsonObject();
+        parameters.add("urls", gson.toJsonTree(policy.getBlockedPatterns()));
+        devTools.execute("Network.setBlockedURLs", parameters);
+        interceptors.put(driver, new ResourceInterceptor(policy));
+    }
+
+    /**
+     * This method is used to register a policy the browser applies by itself, like the Firefox preferences, so
+     * the pages are counted too.
+     */
+    public static void register(WebDriver driver, ResourcePolicy policy){
+        if (!policy.isEmpty()) interceptors.put(driver, new ResourceInterceptor(policy));
+    }
+
+    /**
+     * This method is used to return the interceptor of a driver session, or null when it has no resource policy.
+     */
+    public static ResourceInterceptor forDriver(WebDriver driver){
+        return interceptors.get(driver);
+    }
+
+    //region Page Counters
+
+    /**
+     * This method is used to count the blocked and served requests of the current page with a single script call.
+     * Blocked requests are the resources and element URLs that match the policy; served requests and their bytes
+     * come from the resource timings of the page.
+     */
+    public PageStats recordPage(WebDriver driver){
+        List<?> values = (List<?>) ((JavascriptExecutor) driver).executeScript(READ_RESOURCES,
+                policy.getBlockedPatterns());
+        PageStats stats = pages.computeIfAbsent((String) values.get(0), url -> new PageStats());
+        stats.record(((Number) values.get(1)).longValue(), ((Number) values.get(2)).longValue(),
+                ((Number) values.get(3)).longValue());
+        return stats;
+    }
+
+    public ResourcePolicy getPolicy() { return policy; }
+
+    /**
+     * This method is used to return the counters of every page loaded, sorted by URL.
+     */
+    public Map<String, PageStats> getStats(){
+        return Collections.unmodifiableMap(new TreeMap<>(pages));
+    }
+
+    public static class PageStats {
+
+        private final AtomicLong loads = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+        private final AtomicLong served = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private void record(long blockedRequests, long servedRequests, long transferredBytes){
+            loads.incrementAndGet();
+            blocked.addAndGet(blockedRequests);
+            served.addAndGet(servedRequests);
+            bytes.addAndGet(transferredBytes);
+        }
+
+        public long getLoads() { return loads.get(); }
+
+        public long getBlocked() { return blocked.get(); }
+
+        public long getServed() { return served.get(); }
+
+        /**
+         * This method is used to return the bytes transferred by the served requests.
+         */
+        public long getBytes() { return bytes.get(); }
+
+        @Override
+        public String toString(){
+            return String.format("loads=%d blocked=%d served=%d bytes=%d", getLoads(), getBlocked(), getServed(),
+                    getBytes());
+        }
+    }
+
+    //endregion
+}
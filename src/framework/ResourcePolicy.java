@@ -0,0 +1,128 @@
+package framework;
+
+import org.openqa.selenium.firefox.FirefoxOptions;
+
+import java.util.*;
+
+/**
+ * This class is used to decide which resources the browser doesn't download while loading the pages, like images,
+ * web fonts, video or analytics. The policies are immutable, every with method returns a new policy.
+ */
+public final class ResourcePolicy {
+
+    /**
+     * This enum is used to block every resource of a kind by its URL patterns.
+     */
+    public enum ResourceType {
+        IMAGE("*.png", "*.jpg", "*.jpeg", "*.gif", "*.webp", "*.svg", "*.ico"),
+        FONT("*.woff", "*.woff2", "*.ttf", "*.otf", "*.eot"),
+        MEDIA("*.mp4", "*.webm", "*.ogv", "*.mp3", "*.m3u8"),
+        ANALYTICS("*google-analytics.com*", "*googletagmanager.com*", "*doubleclick.net*", "*hotjar.com*",
+                "*segment.io*", "*facebook.net*");
+
+        private final List<String> patterns;
+
+        ResourceType(String... patterns){
+            List<String> urlPatterns = new ArrayList<>();
+            for (String pattern: patterns) {
+                urlPatterns.add(pattern);
+                if (!pattern.endsWith("*")) urlPatterns.add(pattern + "?*");
+            }
+            this.patterns = Collections.unmodifiableList(urlPatterns);
+        }
+    }
+
+    private static final ResourcePolicy NONE = new ResourcePolicy(EnumSet.noneOf(ResourceType.class),
+            Collections.emptyList());
+
+    private final Set<ResourceType> blockedTypes;
+    private final List<String> blockedUrls;
+
+    private ResourcePolicy(Set<ResourceType> blockedTypes, List<String> blockedUrls){
+        this.blockedTypes = Collections.unmodifiableSet(blockedTypes);
+        this.blockedUrls = Collections.unmodifiableList(blockedUrls);
+    }
+
+    //region Policies
+
+    /**
+     * This method is used to download every resource, the default.
+     */
+    public static ResourcePolicy none(){
+        return NONE;
+    }
+
+    /**
+     * This method is used to block every resource of the given kinds.
+     */
+    public static ResourcePolicy blocking(ResourceType... types){
+        return NONE.withBlockedTypes(types);
+    }
+
+    public ResourcePolicy withBlockedTypes(ResourceType... types){
+        Set<ResourceType> blocked = EnumSet.noneOf(ResourceType.class);
+        blocked.addAll(blockedTypes);
+        blocked.addAll(Arrays.asList(types));
+        return new ResourcePolicy(blocked, blockedUrls);
+    }
+
+    /**
+     * This method is used to block the URLs that match the given patterns, where * matches any text.
+     */
+    public ResourcePolicy withBlockedUrls(String... patterns){
+        List<String> blocked = new ArrayList<>(blockedUrls);
+        for (String pattern: patterns) if (!blocked.contains(pattern)) blocked.add(pattern);
+        Set<ResourceType> types = EnumSet.noneOf(ResourceType.class);
+        types.addAll(blockedTypes);
+        return new ResourcePolicy(types, blocked);
+    }
+
+    //endregion
+
+    //region Browser Options
+
+    /**
+     * This method is used to return every blocked URL pattern, the ones of the blocked kinds first.
+     */
+    public List<String> getBlockedPatterns(){
+        List<String> patterns = new ArrayList<>();
+        for (ResourceType type: blockedTypes) patterns.addAll(type.patterns);
+        patterns.addAll(blockedUrls);
+        return patterns;
+    }
+
+    /**
+     * This method is used to add the policy preferences to the Firefox options. Firefox can only block images and
+     * web fonts through its preferences, so other kinds and URL patterns are not supported.
+     */
+    public void applyTo(FirefoxOptions options){
+        for (ResourceType type: blockedTypes) {
+            if (type != ResourceType.IMAGE && type != ResourceType.FONT)
+                throw new IllegalArgumentException(String.format("Blocking %s is not supported by FIREFOX", type));
+        }
+        if (!blockedUrls.isEmpty())
+            throw new IllegalArgumentException("Blocking URL patterns is not supported by FIREFOX");
+        if (blockedTypes.contains(ResourceType.IMAGE)) options.addPreference("permissions.default.image", 2);
+        if (blockedTypes.contains(ResourceType.FONT)) options.addPreference("browser.display.use_document_fonts", 0);
+    }
+
+    //endregion
+
+    public boolean isEmpty() { return blockedTypes.isEmpty() && blockedUrls.isEmpty(); }
+
+    /**
+     * This method is used to return a key with the blocked kinds and URLs, to keep it in the session keys.
+     */
+    public String getKey(){
+        if (isEmpty()) return "";
+        StringJoiner key = new StringJoiner(",", "{", "}");
+        for (ResourceType type: blockedTypes) key.add(type.name());
+        for (String url: blockedUrls) key.add(url);
+        return key.toString();
+    }
+
+    @Override
+    public String toString(){
+        return getKey();
+    }
+}
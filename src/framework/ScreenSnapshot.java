@@ -0,0 +1,216 @@
+package framework;
+
+import io.appium.java_client.MobileBy;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class is used to read the page source of a mobile screen once and to answer many locator queries, text
+ * reads and visibility checks locally, without a round trip per element. The snapshot doesn't change, so it must
+ * be taken again after any action that changes the screen.
+ */
+public class ScreenSnapshot {
+
+    private static final Pattern ANDROID_BOUNDS = Pattern.compile("\\[(-?\\d+),(-?\\d+)\\]\\[(-?\\d+),(-?\\d+)\\]");
+
+    private final Document document;
+    private final XPath xPath = XPathFactory.newInstance().newXPath();
+
+    private ScreenSnapshot(Document document){
+        this.document = document;
+    }
+
+    /**
+     * This method is used to read the current screen of the driver.
+     */
+    public static ScreenSnapshot capture(WebDriver driver){
+        return parse(driver.getPageSource());
+    }
+
+    /**
+     * This method is used to parse a page source read before.
+     */
+    public static ScreenSnapshot parse(String pageSource){
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return new ScreenSnapshot(factory.newDocumentBuilder().parse(new InputSource(new StringReader(pageSource))));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new IllegalArgumentException("The page source couldn't be parsed", e);
+        }
+    }
+
+    //region Snapshot Queries
+
+    /**
+     * This method is used to return the nodes of the XPath expression.
+     */
+    public List<Node> findAll(String xPathExpression){
+        try {
+            NodeList nodes = (NodeList) xPath.evaluate(xPathExpression, document, XPathConstants.NODESET);
+            List<Node> result = new ArrayList<>(nodes.getLength());
+            for (int i = 0; i < nodes.getLength(); i++)
+                if (nodes.item(i) instanceof Element) result.add(new Node((Element) nodes.item(i)));
+            return result;
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException(String.format("The XPath %s is not valid", xPathExpression), e);
+        }
+    }
+
+    /**
+     * This method is used to return the nodes of a locator. XPath, id, class name and accessibility id locators
+     * are supported.
+     */
+    public List<Node> findAll(By locator){
+        return findAll(toXPath(locator));
+    }
+
+    /**
+     * This method is used to return the first node of the locator, or null when there isn't any.
+     */
+    public Node find(By locator){
+        List<Node> nodes = findAll(locator);
+        return nodes.isEmpty() ? null : nodes.get(0);
+    }
+
+    /**
+     * This method is used to return the first node whose text contains the given text, or null.
+     */
+    public Node findByText(String text){
+        for (Node node: findAll("//*")) if (node.getText().contains(text)) return node;
+        return null;
+    }
+
+    public boolean isVisible(By locator){
+        for (Node node: findAll(locator)) if (node.isDisplayed()) return true;
+        return false;
+    }
+
+    public List<String> getTexts(By locator){
+        List<String> texts = new ArrayList<>();
+        for (Node node: findAll(locator)) texts.add(node.getText());
+        return texts;
+    }
+
+    /**
+     * This method is used to check if the locator can be evaluated on a snapshot.
+     */
+    public static boolean isSupported(By locator){
+        return locator instanceof By.ByXPath || locator instanceof By.ById || locator instanceof By.ByClassName
+                || locator instanceof MobileBy.ByAccessibilityId;
+    }
+
+    private static String toXPath(By locator){
+        String description = locator.toString();
+        String value = description.substring(description.indexOf(": ") + 2);
+        if (locator instanceof By.ByXPath) return value;
+        if (locator instanceof By.ById) {
+            // UiAutomator2 gives the full ids, like com.example:id/login, and By.id("login") finds them live
+            String suffix = literal(":id/" + value);
+            return String.format("//*[@resource-id=%1$s or @name=%1$s or substring(@resource-id, " +
+                    "string-length(@resource-id) - string-length(%2$s) + 1) = %2$s]", literal(value), suffix);
+        }
+        if (locator instanceof By.ByClassName) return String.format("//*[name()=%s]", literal(value));
+        if (locator instanceof MobileBy.ByAccessibilityId)
+            return String.format("//*[@content-desc=%1$s or @name=%1$s]", literal(value));
+        throw new IllegalArgumentException(String.format("The locator %s can't be evaluated on a snapshot", locator));
+    }
+
+    private static String literal(String value){
+        if (!value.contains("'")) return "'" + value + "'";
+        if (!value.contains("\"")) return "\"" + value + "\"";
+        return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+
+    //endregion
+
+    /**
+     * This class is used to read an element of the snapshot, with the attributes of Android or iOS.
+     */
+    public static class Node {
+
+        private final Element element;
+
+        private Node(Element element){
+            this.element = element;
+        }
+
+        public String getClassName() { return element.getTagName(); }
+
+        /**
+         * This method is used to return the attribute value, or null when the element doesn't have it.
+         */
+        public String getAttribute(String name){
+            return element.hasAttribute(name) ? element.getAttribute(name) : null;
+        }
+
+        /**
+         * This method is used to return the text on Android, or the label or the value on iOS.
+         */
+        public String getText(){
+            for (String name: new String[]{"text", "label", "value"}) {
+                String text = getAttribute(name);
+                if (text != null && !text.isEmpty()) return text;
+            }
+            return "";
+        }
+
+        public boolean isDisplayed(){
+            String displayed = getAttribute("displayed");
+            if (displayed == null) displayed = getAttribute("visible");
+            return displayed == null || Boolean.parseBoolean(displayed);
+        }
+
+        public boolean isEnabled(){
+            String enabled = getAttribute("enabled");
+            return enabled == null || Boolean.parseBoolean(enabled);
+        }
+
+        /**
+         * This method is used to return the element position and size, from the bounds on Android or the x, y,
+         * width and height on iOS.
+         */
+        public Rectangle getRect(){
+            String bounds = getAttribute("bounds");
+            if (bounds != null) {
+                Matcher matcher = ANDROID_BOUNDS.matcher(bounds);
+                if (matcher.matches()) {
+                    int left = Integer.parseInt(matcher.group(1));
+                    int top = Integer.parseInt(matcher.group(2));
+                    return new Rectangle(left, top, Integer.parseInt(matcher.group(4)) - top,
+                            Integer.parseInt(matcher.group(3)) - left);
+                }
+            }
+            return new Rectangle(toInt("x"), toInt("y"), toInt("height"), toInt("width"));
+        }
+
+        private int toInt(String attribute){
+            String value = getAttribute(attribute);
+            return value == null || value.isEmpty() ? 0 : Integer.parseInt(value);
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%s[%s]", getClassName(), getText());
+        }
+    }
+}
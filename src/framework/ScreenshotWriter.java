@@ -0,0 +1,198 @@
+package framework;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class is used to write the screenshots on background threads, so the tests only pay for the capture.
+ */
+public class ScreenshotWriter {
+
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int WRITER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final BlockingQueue<Screenshot> pendingScreenshots = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final List<IOException> failures = new ArrayList<>();
+    private static final Object flushLock = new Object();
+    private static int unfinishedScreenshots;
+    private static boolean started;
+    private static volatile double scale = 1;
+    private static volatile String format = "png";
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ScreenshotWriter::flushQuietly, "screenshot-flush"));
+    }
+
+    //region Writer Configuration
+
+    /**
+     * This method is used to set the factor the screenshots are resized with, one keeps the original size.
+     */
+    public static void setScale(double scaleFactor){
+        if (scaleFactor <= 0 || scaleFactor > 1)
+            throw new IllegalArgumentException(String.format("The scale %s must be between zero and one", scaleFactor));
+        scale = scaleFactor;
+    }
+
+    /**
+     * This method is used to set the image format of the screenshots, like png or jpg.
+     */
+    public static void setFormat(String imageFormat){
+        if (!ImageIO.getImageWritersByFormatName(imageFormat).hasNext())
+            throw new IllegalArgumentException(String.format("The image format %s is not supported", imageFormat));
+        format = imageFormat.toLowerCase();
+    }
+
+    //endregion
+
+    //region Writer Methods
+
+    /**
+     * This method is used to queue a PNG screenshot to be written on the given path, without extension. When
+     * the queue is full the call waits until a writer thread takes a screenshot from it.
+     */
+    public static void submit(byte[] png, Path pathWithoutExtension){
+        Screenshot screenshot = new Screenshot(png, pathWithoutExtension, scale, format);
+        synchronized (flushLock) {
+            if (!started) startWriters();
+            unfinishedScreenshots++;
+        }
+        try {
+            pendingScreenshots.put(screenshot);
+        } catch (InterruptedException e) {
+            finished(null);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The thread was interrupted while queueing a screenshot", e);
+        }
+    }
+
+    /**
+     * This method is used to wait until every queued screenshot is written. It throws the first write failure
+     * since the previous flush.
+     */
+    public static void flush(){
+        synchronized (flushLock) {
+            while (unfinishedScreenshots > 0) {
+                try {
+                    flushLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("The thread was interrupted while flushing the screenshots", e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                IOException failure = failures.get(0);
+                failures.clear();
+                throw new UncheckedIOException(failure);
+            }
+        }
+    }
+
+    private static void flushQuietly(){
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void startWriters(){
+        for (int i = 0; i < WRITER_THREADS; i++) {
+            Thread writer = new Thread(ScreenshotWriter::writeScreenshots, "screenshot-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+        }
+        started = true;
+    }
+
+    private static void writeScreenshots(){
+        while (true) {
+            Screenshot screenshot;
+            try {
+                screenshot = pendingScreenshots.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // An Error, like running out of memory, ends the thread, but the screenshot still counts as finished
+            // and failed, so flush doesn't wait for it forever
+            IOException failure = new IOException(String.format("The screenshot %s wasn't written", screenshot.target));
+            try {
+                screenshot.write();
+                failure = null;
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e);
+            } finally {
+                finished(failure);
+            }
+        }
+    }
+
+    private static void finished(IOException failure){
+        synchronized (flushLock) {
+            if (failure != null) failures.add(failure);
+            unfinishedScreenshots--;
+            flushLock.notifyAll();
+        }
+    }
+
+    //endregion
+
+    private static class Screenshot {
+
+        private final byte[] png;
+        private final Path target;
+        private final double scale;
+        private final String format;
+
+        private Screenshot(byte[] png, Path pathWithoutExtension, double scale, String format){
+            this.png = png;
+            this.target = pathWithoutExtension.resolveSibling(pathWithoutExtension.getFileName() + "." + format);
+            this.scale = scale;
+            this.format = format;
+        }
+
+        private void write() throws IOException {
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, encode());
+                try {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private byte[] encode() throws IOException {
+            if (scale == 1 && "png".equals(format)) return png;
+            BufferedImage original = ImageIO.read(new ByteArrayInputStream(png));
+            if (original == null) throw new IOException(String.format("The screenshot %s is not a valid image", target));
+            int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(original, 0, 0, width, height, null);
+            graphics.dispose();
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            ImageIO.write(image, format, encoded);
+            return encoded.toByteArray();
+        }
+    }
+}
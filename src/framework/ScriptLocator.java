@@ -0,0 +1,106 @@
+package framework;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * This class is used to resolve a locator inside the browser, so an injected script can find and read the
+ * elements in the same round trip.
+ */
+public class ScriptLocator {
+
+    /**
+     * Script function that returns the elements for the arguments built by {@link #toScriptArguments}.
+     */
+    public static final String FIND_ELEMENTS =
+            "function(using, value) {" +
+            "  if (typeof using !== 'string') return Array.prototype.slice.call(using);" +
+            "  var quote = function(text) { return '\"' + text.replace(/([\"\\\\])/g, '\\\\$1') + '\"'; };" +
+            "  var all = function(nodes) { return Array.prototype.slice.call(nodes); };" +
+            "  var links = function(match) {" +
+            "    return all(document.getElementsByTagName('a')).filter(function(e) {" +
+            "      return match((e.innerText || e.textContent || '').trim()); });" +
+            "  };" +
+            "  switch (using) {" +
+            "    case 'css': return all(document.querySelectorAll(value));" +
+            "    case 'id': return all(document.querySelectorAll('[id=' + quote(value) + ']'));" +
+            "    case 'name': return all(document.querySelectorAll('[name=' + quote(value) + ']'));" +
+            "    case 'className': return all(document.getElementsByClassName(value));" +
+            "    case 'tagName': return all(document.getElementsByTagName(value));" +
+            "    case 'linkText': return links(function(text) { return text === value; });" +
+            "    case 'partialLinkText': return links(function(text) { return text.indexOf(value) >= 0; });" +
+            "    case 'xpath':" +
+            "      var result = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);" +
+            "      var elements = [];" +
+            "      for (var i = 0; i < result.snapshotLength; i++) elements.push(result.snapshotItem(i));" +
+            "      return elements;" +
+            "  }" +
+            "  throw new Error('Unsupported locator ' + using);" +
+            "}";
+
+    /**
+     * Script declarations of isShown and text, which return the visibility and the visible text of an element
+     * like WebElement.isDisplayed and WebElement.getText.
+     */
+    public static final String VISIBLE_TEXT =
+            "var isShown = function(e) {" +
+            "  if (e.tagName === 'OPTION') { var s = e.closest('select'); return !s || isShown(s); }" +
+            "  if (!(e.offsetWidth || e.offsetHeight || e.getClientRects().length)) return false;" +
+            "  return window.getComputedStyle(e).visibility !== 'hidden';" +
+            "};" +
+            "var text = function(e) {" +
+            "  if (e.tagName === 'OPTION') return e.text.trim();" +
+            "  return isShown(e) ? (e.innerText || '').trim() : '';" +
+            "};";
+
+    private static final String FIND_BY_TEXT =
+            "var elements = (" + FIND_ELEMENTS + ")(arguments[0], arguments[1]);" +
+            VISIBLE_TEXT +
+            "for (var i = 0; i < elements.length; i++) {" +
+            "  if (text(elements[i]).indexOf(arguments[2]) >= 0) return elements[i];" +
+            "}" +
+            "return null;";
+
+    /**
+     * This method is used to return the first element of the locator whose visible text contains the given text,
+     * or null when there isn't any. The texts are compared inside the browser, in a single round trip.
+     */
+    public static WebElement findByText(WebDriver driver, By locator, String elementText){
+        Object[] locatorArguments = toScriptArguments(driver, locator);
+        return (WebElement) ((JavascriptExecutor) driver).executeScript(FIND_BY_TEXT,
+                locatorArguments[0], locatorArguments[1], elementText);
+    }
+
+    /**
+     * This method is used to return the two script arguments that identify the locator elements. Locators that
+     * can't be resolved inside the browser are found first, and the found elements are passed instead.
+     */
+    public static Object[] toScriptArguments(SearchContext context, By locator){
+        String using = getStrategy(locator);
+        if (using == null) return new Object[]{context.findElements(locator), null};
+        String value = locator.toString();
+        return new Object[]{using, value.substring(value.indexOf(": ") + 2)};
+    }
+
+    /**
+     * This method is used to check if the locator can be resolved inside the browser.
+     */
+    public static boolean isSupported(By locator){
+        return getStrategy(locator) != null;
+    }
+
+    private static String getStrategy(By locator){
+        if (locator instanceof By.ByCssSelector) return "css";
+        if (locator instanceof By.ById) return "id";
+        if (locator instanceof By.ByName) return "name";
+        if (locator instanceof By.ByClassName) return "className";
+        if (locator instanceof By.ByTagName) return "tagName";
+        if (locator instanceof By.ByLinkText) return "linkText";
+        if (locator instanceof By.ByPartialLinkText) return "partialLinkText";
+        if (locator instanceof By.ByXPath) return "xpath";
+        return null;
+    }
+}
@@ -0,0 +1,204 @@
+package framework;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.MobileElement;
+import io.appium.java_client.ios.IOSDriver;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * This class is used to scroll a mobile screen until an element is visible. The step is worked out from the rows
+ * of the list on the screen, and the search stops as soon as the element is visible or the rows stop moving,
+ * which means the end of the list was reached. It works with the W3C pointer actions, so it works on Android and
+ * iOS.
+ */
+public class ScrollEngine {
+
+    public enum Direction { DOWN, UP, LEFT, RIGHT }
+
+    private static final Duration DRAG = Duration.ofMillis(400);
+    private static final Duration FLING = Duration.ofMillis(120);
+    private static final int SWIPES_BEFORE_FLING = 3;
+    private static final By ANDROID_ROWS = By.xpath("//*[@scrollable='true']/*");
+    private static final By IOS_ROWS = By.xpath(
+            "//XCUIElementTypeTable/*|//XCUIElementTypeCollectionView/*|//XCUIElementTypeScrollView/*");
+    private static final By CHILDREN = By.xpath("./*");
+
+    private final AppiumDriver<MobileElement> driver;
+    private Direction direction = Direction.DOWN;
+    private MobileElement container;
+    private Rectangle area;
+    private int maxSwipes = 100;
+    private boolean fling;
+
+    public ScrollEngine(AppiumDriver<MobileElement> driver){
+        this.driver = driver;
+    }
+
+    //region Engine Configuration
+
+    public ScrollEngine direction(Direction direction){
+        this.direction = direction;
+        return this;
+    }
+
+    /**
+     * This method is used to scroll inside the given container instead of the whole screen. Its children are the
+     * rows of the list.
+     */
+    public ScrollEngine within(MobileElement container){
+        this.container = container;
+        this.area = container.getRect();
+        return this;
+    }
+
+    public ScrollEngine maxSwipes(int maxSwipes){
+        if (maxSwipes < 1) throw new IllegalArgumentException("The maximum amount of swipes must be greater than zero");
+        this.maxSwipes = maxSwipes;
+        return this;
+    }
+
+    /**
+     * This method is used to fling after a few swipes without finding the element, so long lists are travelled
+     * faster. Only useful when the list keeps the passed rows, as flung rows may be skipped.
+     */
+    public ScrollEngine fling(boolean fling){
+        this.fling = fling;
+        return this;
+    }
+
+    //endregion
+
+    /**
+     * This method is used to scroll until an element of the locator is visible and to return it.
+     */
+    public MobileElement scrollTo(By locator){
+        Rectangle scrollArea = area != null ? area : screen();
+        String previousFingerprint = null;
+        for (int swipe = 0; swipe <= maxSwipes; swipe++) {
+            MobileElement element = findVisible(locator);
+            if (element != null) return element;
+            Rows rows = readRows();
+            if (swipe > 0 && rows.fingerprint.equals(previousFingerprint)) break;
+            previousFingerprint = rows.fingerprint;
+            swipe(scrollArea, step(scrollArea, rows), fling && swipe >= SWIPES_BEFORE_FLING ? FLING : DRAG);
+        }
+        throw new NoSuchElementException(String.format(
+                "There couldn't be found any element with the following selector after scrolling: %s", locator));
+    }
+
+    /**
+     * This method is used to scroll the given pixels, in steps no longer than the scroll area.
+     */
+    public void scrollBy(int pixels){
+        Rectangle scrollArea = area != null ? area : screen();
+        int step = defaultStep(scrollArea);
+        for (int remaining = Math.abs(pixels); remaining > 0; remaining -= step)
+            swipe(scrollArea, Math.min(step, remaining), DRAG);
+    }
+
+    private MobileElement findVisible(By locator){
+        List<MobileElement> elements = ElementProbe.findElementsNow(driver, locator);
+        for (MobileElement element: elements) {
+            try {
+                if (element.isDisplayed()) return element;
+            } catch (StaleElementReferenceException e) {
+                // The list moved while reading it, the next round finds the element again
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The rows are the children of the container, or of the first scrollable view of the screen. The first and
+     * last rows tell where the list is, so comparing them is enough to know it stopped moving. Screens without
+     * rows fall back to the page source.
+     */
+    private Rows readRows(){
+        List<MobileElement> rows = container != null
+                ? ElementProbe.findElementsNow(driver, container, CHILDREN)
+                : ElementProbe.findElementsNow(driver, driver instanceof IOSDriver ? IOS_ROWS : ANDROID_ROWS);
+        try {
+            if (!rows.isEmpty()) {
+                MobileElement first = rows.get(0);
+                MobileElement last = rows.get(rows.size() - 1);
+                Rectangle firstRect = first.getRect();
+                Rectangle lastRect = last.getRect();
+                String fingerprint = String.format("%s|%s|%d,%d,%d,%d", first.getText(), last.getText(),
+                        lastRect.x, lastRect.y, lastRect.width, lastRect.height);
+                return new Rows(fingerprint, rows.size() > 1 ? firstRect : null, lastRect);
+            }
+        } catch (StaleElementReferenceException e) {
+            // The list moved while reading it, the page source tells where it is
+        }
+        return new Rows(String.valueOf(driver.getPageSource().hashCode()), null, null);
+    }
+
+    private Rectangle screen(){
+        Dimension size = driver.manage().window().getSize();
+        return new Rectangle(0, 0, size.height, size.width);
+    }
+
+    /**
+     * The step is the distance from the first row to the last one, so the last row on the screen becomes the
+     * first one and no row is skipped, however tall the rows are. It is kept between one row and 80% of the
+     * scroll area, so the swipe never starts or ends outside of it.
+     */
+    private int step(Rectangle scrollArea, Rows rows){
+        if (rows.first == null) return defaultStep(scrollArea);
+        boolean vertical = direction == Direction.DOWN || direction == Direction.UP;
+        int distance = Math.abs(vertical ? rows.last.y - rows.first.y : rows.last.x - rows.first.x);
+        int row = vertical ? rows.last.height : rows.last.width;
+        int maximum = (int) ((vertical ? scrollArea.height : scrollArea.width) * 0.8);
+        return Math.max(Math.min(distance, maximum), Math.min(row, maximum));
+    }
+
+    /**
+     * Without rows the step is 60% of the scroll area, so every swipe keeps some of the previous rows on the screen.
+     */
+    private int defaultStep(Rectangle scrollArea){
+        boolean vertical = direction == Direction.DOWN || direction == Direction.UP;
+        return (int) ((vertical ? scrollArea.height : scrollArea.width) * 0.6);
+    }
+
+    private void swipe(Rectangle scrollArea, int distance, Duration duration){
+        int centerX = scrollArea.x + scrollArea.width / 2;
+        int centerY = scrollArea.y + scrollArea.height / 2;
+        int half = distance / 2;
+        GestureBuilder gestures = new GestureBuilder(driver);
+        switch (direction) {
+            case DOWN:
+                gestures.swipe(centerX, centerY + half, centerX, centerY - half, duration);
+                break;
+            case UP:
+                gestures.swipe(centerX, centerY - half, centerX, centerY + half, duration);
+                break;
+            case RIGHT:
+                gestures.swipe(centerX + half, centerY, centerX - half, centerY, duration);
+                break;
+            case LEFT:
+                gestures.swipe(centerX - half, centerY, centerX + half, centerY, duration);
+                break;
+        }
+        gestures.perform();
+    }
+
+    private static final class Rows {
+
+        private final String fingerprint;
+        private final Rectangle first;
+        private final Rectangle last;
+
+        private Rows(String fingerprint, Rectangle first, Rectangle last){
+            this.fingerprint = fingerprint;
+            this.first = first;
+            this.last = last;
+        }
+    }
+}
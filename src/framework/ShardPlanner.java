@@ -0,0 +1,227 @@
+package framework;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class is used to split the tests among several JVMs or hosts by their recorded durations, so every shard
+ * finishes at about the same time, either as fixed shards or as a shared queue the shards take the tests from.
+ */
+public class ShardPlanner {
+
+    private static final double UNKNOWN_MILLIS = 60_000;
+    private static final String MANIFEST = "tests";
+
+    private final Map<String, TestDurations.Estimate> estimates;
+    private final double unknownMillis;
+
+    private ShardPlanner(Map<String, TestDurations.Estimate> estimates){
+        this.estimates = estimates;
+        double total = 0;
+        for (TestDurations.Estimate estimate: estimates.values()) total += estimate.getMillis();
+        unknownMillis = estimates.isEmpty() ? UNKNOWN_MILLIS : total / estimates.size();
+    }
+
+    /**
+     * This method is used to plan with the durations recorded on the test durations store. Tests without any
+     * duration count as an average one. The store is only used for the durations: the resource every test needs
+     * is given by the caller.
+     */
+    public static ShardPlanner fromRecordedDurations(){
+        return new ShardPlanner(TestDurations.load());
+    }
+
+    //region Fixed Shards
+
+    /**
+     * This method is used to split the tests in the given amount of shards, longest test first, every test going
+     * to the shard with the least work so far. Every shard must be able to run every test.
+     */
+    public List<List<String>> plan(Collection<String> tests, int shards){
+        return assign(longestFirst(tests), shards, shards, test -> null);
+    }
+
+    /**
+     * This method is used to split the tests in the given amount of shards when only the first mobile shards
+     * have devices: mobile tests only go to those, web tests go to any. The map tells the resource every test
+     * needs.
+     */
+    public List<List<String>> plan(Map<String, TestDurations.Resource> tests, int shards, int mobileShards){
+        checkResources(tests);
+        return assign(longestFirst(tests.keySet()), shards, mobileShards, tests::get);
+    }
+
+    /**
+     * This method is used to return the tests of one shard, for a JVM that knows its index.
+     */
+    public List<String> getShard(Collection<String> tests, int shards, int index){
+        if (index < 0 || index >= shards)
+            throw new IllegalArgumentException(String.format("The shard %d doesn't exist", index));
+        return plan(tests, shards).get(index);
+    }
+
+    private List<List<String>> assign(List<String> tests, int shards, int mobileShards,
+                                      Function<String, TestDurations.Resource> resources){
+        if (shards <= 0) throw new IllegalArgumentException("The amount of shards must be greater than zero");
+        if (mobileShards < 0 || mobileShards > shards)
+            throw new IllegalArgumentException(String.format(
+                    "The mobile shards %d must be between zero and the %d shards", mobileShards, shards));
+        List<List<String>> plan = new ArrayList<>();
+        double[] loads = new double[shards];
+        for (int i = 0; i < shards; i++) plan.add(new ArrayList<>());
+        for (String test: tests) {
+            boolean mobile = mobileShards < shards && resources.apply(test) == TestDurations.Resource.MOBILE;
+            if (mobile && mobileShards == 0)
+                throw new IllegalArgumentException(String.format("The mobile test %s needs a mobile shard", test));
+            int candidates = mobile ? mobileShards : shards;
+            int lightest = 0;
+            for (int i = 1; i < candidates; i++) if (loads[i] < loads[lightest]) lightest = i;
+            plan.get(lightest).add(test);
+            loads[lightest] += getMillis(test);
+        }
+        return plan;
+    }
+
+    //endregion
+
+    //region Shared Queue
+
+    /**
+     * This method is used to create the queue of a run on the given directory, longest test first. The map tells
+     * the resource every test needs. Several JVMs of the same run can call it at the same time: the first one
+     * creates the queue and the others join it. The run id, like the build number, must be new on every run;
+     * a queue of the run id with other tests is rejected instead of being reused.
+     */
+    public Queue createQueue(Path directory, String runId, Map<String, TestDurations.Resource> tests){
+        checkResources(tests);
+        Queue queue = new Queue(directory, runId);
+        List<String> sorted = longestFirst(tests.keySet());
+        try {
+            if (!Files.exists(queue.pending)) {
+                Files.createDirectories(queue.root);
+                Path filling = Files.createTempDirectory(queue.root, "filling");
+                int index = 0;
+                for (String test: sorted) {
+                    Files.write(filling.resolve(String.format("%06d-%s", index++, tests.get(test))),
+                            test.getBytes(StandardCharsets.UTF_8));
+                }
+                Files.write(filling.resolve(MANIFEST), sorted, StandardCharsets.UTF_8);
+                try {
+                    Files.move(filling, queue.pending, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                    deleteRecursively(filling);
+                }
+            }
+            Files.createDirectories(queue.claimed);
+            List<String> queued = Files.readAllLines(queue.pending.resolve(MANIFEST), StandardCharsets.UTF_8);
+            if (!new HashSet<>(queued).equals(new HashSet<>(sorted)))
+                throw new IllegalStateException(String.format(
+                        "The queue of the run %s on %s has other tests, a new run id is needed", runId, directory));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The test queue couldn't be created on %s", directory), e);
+        }
+        return queue;
+    }
+
+    private static void checkResources(Map<String, TestDurations.Resource> tests){
+        for (Map.Entry<String, TestDurations.Resource> test: tests.entrySet())
+            if (test.getValue() == null)
+                throw new IllegalArgumentException(String.format(
+                        "The resource of the test %s is missing", test.getKey()));
+    }
+
+    private List<String> longestFirst(Collection<String> tests){
+        List<String> sorted = new ArrayList<>(new LinkedHashSet<>(tests));
+        sorted.sort(Comparator.comparingDouble(this::getMillis).reversed().thenComparing(Comparator.naturalOrder()));
+        return sorted;
+    }
+
+    private double getMillis(String test){
+        TestDurations.Estimate estimate = estimates.get(test);
+        return estimate == null ? unknownMillis : estimate.getMillis();
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path: paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * This class is used to hand the tests out to the shards as they become free, so a slow shard takes fewer
+     * tests instead of delaying the whole suite. Every test is a file that the shards claim with an atomic move.
+     */
+    public static class Queue {
+
+        private final Path root;
+        private final Path pending;
+        private final Path claimed;
+
+        private Queue(Path directory, String runId){
+            if (runId == null || !runId.matches("[\\w-][\\w.-]*"))
+                throw new IllegalArgumentException(String.format("The run id %s is not valid", runId));
+            root = directory.resolve(runId);
+            pending = root.resolve("pending");
+            claimed = root.resolve("claimed");
+        }
+
+        /**
+         * This method is used to open the queue of a run created by another JVM.
+         */
+        public static Queue open(Path directory, String runId){
+            Queue queue = new Queue(directory, runId);
+            if (!Files.isDirectory(queue.pending))
+                throw new IllegalArgumentException(String.format(
+                        "There isn't any test queue of the run %s on %s", runId, directory));
+            return queue;
+        }
+
+        /**
+         * This method is used to take the next test, the longest one left that the shard can run. Returns null
+         * when there isn't any left.
+         */
+        public String claim(boolean mobileCapable){
+            try {
+                Files.createDirectories(claimed);
+                for (Path entry: list()) {
+                    if (!mobileCapable && entry.getFileName().toString().endsWith("-" + TestDurations.Resource.MOBILE))
+                        continue;
+                    Path target = claimed.resolve(entry.getFileName());
+                    try {
+                        Files.move(entry, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (NoSuchFileException | FileAlreadyExistsException e) {
+                        continue;
+                    }
+                    return new String(Files.readAllBytes(target), StandardCharsets.UTF_8);
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("The test queue %s couldn't be read", pending), e);
+            }
+        }
+
+        public int remaining(){
+            try {
+                return list().size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("The test queue %s couldn't be read", pending), e);
+            }
+        }
+
+        private List<Path> list() throws IOException {
+            try (Stream<Path> entries = Files.list(pending)) {
+                return entries.filter(entry -> !entry.getFileName().toString().equals(MANIFEST))
+                        .sorted().collect(Collectors.toList());
+            }
+        }
+    }
+
+    //endregion
+}
@@ -0,0 +1,446 @@
+package framework;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * This class is used to answer the W3C WebDriver commands from an in-process HTTP server, so the facades can be
+ * measured and tested without browsers or devices. Any base path, like the /wd/hub of Appium, is accepted. The
+ * page is a list of elements per locator and every command can be given a latency. The commands are named like the
+ * Selenium driver commands, such as findElement, getElementText or clickElement.
+ */
+public class StandInWebDriverServer implements AutoCloseable {
+
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stand-in-webdriver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, List<Element>> pageElements = new ConcurrentHashMap<>();
+    private final Map<String, Element> elementsById = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Long> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> commandCounts = new ConcurrentHashMap<>();
+    private final Map<String, JsonObject> devToolsParameters = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final byte[] screenshot;
+    private volatile long defaultLatencyMillis;
+    private volatile String pageSource = "<html><body></body></html>";
+    private volatile BiFunction<String, List<?>, Object> scriptHandler = (script, arguments) -> null;
+
+    static {
+        // Without TCP_NODELAY every answer waits for the delayed ACK of the client, about 40 ms per command
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /**
+     * This method is used to start the server on a free local port.
+     */
+    public StandInWebDriverServer(){
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            screenshot = blankPng();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The stand-in WebDriver server couldn't be started", e);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    //region Server Configuration
+
+    /**
+     * This method is used to return the address the drivers must connect to.
+     */
+    public URL getUrl(){
+        try {
+            return new URL(String.format("http://127.0.0.1:%d/", server.getAddress().getPort()));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * This method is used to make every command without its own latency take the given milliseconds.
+     */
+    public void setDefaultLatency(long millis){
+        defaultLatencyMillis = millis;
+    }
+
+    /**
+     * This method is used to make the given command, such as findElement, take the given milliseconds.
+     */
+    public void setLatency(String command, long millis){
+        latencies.put(command, millis);
+    }
+
+    /**
+     * This method is used to add elements with the given texts to the page, found by the W3C locator strategy and
+     * value, like "css selector" and "#rows td".
+     */
+    public void addElements(String using, String value, String... texts){
+        List<Element> elements = pageElements.computeIfAbsent(using + ":" + value, k -> new ArrayList<>());
+        for (String text: texts) {
+            Element element = new Element(String.valueOf(ids.incrementAndGet()), text);
+            elementsById.put(element.id, element);
+            elements.add(element);
+        }
+    }
+
+    /**
+     * This method is used to return the elements of the page found by the W3C locator strategy and value as
+     * element references, so a script handler can return them like a browser returns elements.
+     */
+    public List<Map<String, String>> getElementReferences(String using, String value){
+        List<Map<String, String>> references = new ArrayList<>();
+        for (Element element: pageElements.getOrDefault(using + ":" + value, Collections.emptyList()))
+            references.add(reference(element));
+        return references;
+    }
+
+    /**
+     * This method is used to return the texts of the elements of the page found by the W3C locator strategy and
+     * value.
+     */
+    public List<String> getElementTexts(String using, String value){
+        List<String> texts = new ArrayList<>();
+        for (Element element: pageElements.getOrDefault(using + ":" + value, Collections.emptyList()))
+            texts.add(element.text);
+        return texts;
+    }
+
+    /**
+     * This method is used to set the source returned by getPageSource, like the XML hierarchy of a mobile screen.
+     */
+    public void setPageSource(String source){
+        pageSource = source;
+    }
+
+    /**
+     * This method is used to set the function that answers the executed scripts, with the script and arguments.
+     */
+    public void setScriptHandler(BiFunction<String, List<?>, Object> handler){
+        scriptHandler = handler;
+    }
+
+    /**
+     * This method is used to return how many times the server answered the given command.
+     */
+    public long getCommandCount(String command){
+        AtomicLong count = commandCounts.get(command);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * This method is used to return the parameters of the last DevTools command with the given name, like
+     * Network.setBlockedURLs, or null when it wasn't sent.
+     */
+    public JsonObject getDevToolsParameters(String command){
+        return devToolsParameters.get(command);
+    }
+
+    @Override
+    public void close(){
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    //endregion
+
+    //region Command Handling
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            List<String> path = new ArrayList<>();
+            for (String segment: exchange.getRequestURI().getPath().split("/")) if (!segment.isEmpty()) path.add(segment);
+            if (path.contains("session")) path = path.subList(path.indexOf("session"), path.size());
+            JsonObject body = readBody(exchange);
+            if (path.size() == 1 && path.get(0).equals("session") && method.equals("POST")) {
+                Session session = new Session(UUID.randomUUID().toString(), requestedCapabilities(body));
+                sessions.put(session.id, session);
+                Map<String, Object> value = new HashMap<>();
+                value.put("sessionId", session.id);
+                value.put("capabilities", session.capabilities);
+                respond(exchange, "newSession", 200, value);
+                return;
+            }
+            if (path.size() < 2 || !path.get(0).equals("session") || !sessions.containsKey(path.get(1))) {
+                respond(exchange, "unknown", 404, error("invalid session id", "The session doesn't exist"));
+                return;
+            }
+            Session session = sessions.get(path.get(1));
+            List<String> command = path.subList(2, path.size());
+            handleCommand(exchange, method, session, command, body);
+        } catch (RuntimeException e) {
+            respond(exchange, "unknown", 500, error("unknown error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void handleCommand(HttpExchange exchange, String method, Session session, List<String> command,
+                               JsonObject body) throws IOException {
+        String first = command.isEmpty() ? "" : command.get(0);
+        if (first.equals("element") && command.size() > 2) {
+            handleElementCommand(exchange, method, command.get(1), command.subList(2, command.size()), body);
+            return;
+        }
+        switch (method + " " + first) {
+            case "GET ":
+                respond(exchange, "getSession", 200, session.capabilities);
+                return;
+            case "DELETE ":
+                sessions.remove(session.id);
+                respond(exchange, "quit", 200, null);
+                return;
+            case "POST url":
+                session.url = body.get("url").getAsString();
+                respond(exchange, "get", 200, null);
+                return;
+            case "GET url":
+                respond(exchange, "getCurrentUrl", 200, session.url);
+                return;
+            case "GET title":
+                respond(exchange, "getTitle", 200, "Stand-in page");
+                return;
+            case "POST refresh":
+            case "POST back":
+            case "POST forward":
+                respond(exchange, first, 200, null);
+                return;
+            case "GET window":
+                if (command.size() > 1 && command.get(1).equals("handles"))
+                    respond(exchange, "getWindowHandles", 200, Collections.singletonList(session.id));
+                else respond(exchange, command.size() > 1 ? "getWindowRect" : "getCurrentWindowHandle", 200,
+                        command.size() > 1 ? rect(0, 0, 1280, 1024) : session.id);
+                return;
+            case "GET screenshot":
+                respond(exchange, "screenshot", 200, Base64.getEncoder().encodeToString(screenshot));
+                return;
+            case "GET source":
+                respond(exchange, "getPageSource", 200, pageSource);
+                return;
+            case "POST element":
+            case "POST elements":
+                findElements(exchange, first.equals("element"), body);
+                return;
+            case "POST execute":
+                List<?> arguments = gson.fromJson(body.get("args"), List.class);
+                respond(exchange, "executeScript", 200, scriptHandler.apply(body.get("script").getAsString(), arguments));
+                return;
+            case "POST goog":
+                String devToolsCommand = body.get("cmd").getAsString();
+                if (body.has("params") && body.get("params").isJsonObject())
+                    devToolsParameters.put(devToolsCommand, body.getAsJsonObject("params"));
+                respond(exchange, "cdp:" + devToolsCommand, 200, new JsonObject());
+                return;
+            default:
+                respond(exchange, commandName(method, command), 200, null);
+        }
+    }
+
+    private void handleElementCommand(HttpExchange exchange, String method, String elementId, List<String> command,
+                                      JsonObject body) throws IOException {
+        Element element = elementsById.get(elementId);
+        String first = command.get(0);
+        if (element == null) {
+            respond(exchange, "unknown", 404, error("stale element reference", "The element doesn't exist"));
+            return;
+        }
+        switch (method + " " + first) {
+            case "POST element":
+            case "POST elements":
+                findElements(exchange, first.equals("element"), body);
+                return;
+            case "GET text":
+                respond(exchange, "getElementText", 200, element.text);
+                return;
+            case "GET name":
+                respond(exchange, "getElementTagName", 200, "div");
+                return;
+            case "GET attribute":
+                respond(exchange, "getElementAttribute", 200, null);
+                return;
+            case "GET property":
+                respond(exchange, "getElementProperty", 200, null);
+                return;
+            case "GET css":
+                respond(exchange, "getElementValueOfCssProperty", 200, "");
+                return;
+            case "GET rect":
+                respond(exchange, "getElementRect", 200, rect(0, 20 * Integer.parseInt(elementId), 100, 20));
+                return;
+            case "GET enabled":
+                respond(exchange, "isElementEnabled", 200, true);
+                return;
+            case "GET selected":
+                respond(exchange, "isElementSelected", 200, false);
+                return;
+            case "GET displayed":
+                respond(exchange, "isElementDisplayed", 200, true);
+                return;
+            case "POST click":
+                respond(exchange, "clickElement", 200, null);
+                return;
+            case "POST clear":
+                respond(exchange, "clearElement", 200, null);
+                return;
+            case "POST value":
+                respond(exchange, "sendKeysToElement", 200, null);
+                return;
+            case "GET screenshot":
+                respond(exchange, "elementScreenshot", 200, Base64.getEncoder().encodeToString(screenshot));
+                return;
+            default:
+                respond(exchange, "element " + commandName(method, command), 200, null);
+        }
+    }
+
+    private void findElements(HttpExchange exchange, boolean single, JsonObject body) throws IOException {
+        String key = body.get("using").getAsString() + ":" + body.get("value").getAsString();
+        List<Element> elements = pageElements.getOrDefault(key, Collections.emptyList());
+        if (single && elements.isEmpty()) {
+            respond(exchange, "findElement", 404, error("no such element", "Unable to locate element: " + key));
+        } else if (single) {
+            respond(exchange, "findElement", 200, reference(elements.get(0)));
+        } else {
+            List<Map<String, String>> references = new ArrayList<>();
+            for (Element element: elements) references.add(reference(element));
+            respond(exchange, "findElements", 200, references);
+        }
+    }
+
+    /**
+     * The references carry the W3C key and the legacy one, like the Appium servers, since the Appium client only
+     * reads the legacy key.
+     */
+    private static Map<String, String> reference(Element element){
+        Map<String, String> reference = new HashMap<>();
+        reference.put(ELEMENT_KEY, element.id);
+        reference.put("ELEMENT", element.id);
+        return reference;
+    }
+
+    private String commandName(String method, List<String> command){
+        return method + " " + String.join("/", command);
+    }
+
+    /**
+     * The session answers with the capabilities it was asked for, W3C or legacy, so the clients pick the same
+     * element classes they would pick on a real server.
+     */
+    private Map<String, Object> requestedCapabilities(JsonObject body){
+        Map<String, Object> capabilities = new HashMap<>();
+        capabilities.put("browserName", "stand-in");
+        JsonElement requested = body.get("desiredCapabilities");
+        if (body.has("capabilities") && body.getAsJsonObject("capabilities").has("alwaysMatch"))
+            requested = body.getAsJsonObject("capabilities").get("alwaysMatch");
+        if (requested != null && requested.isJsonObject())
+            capabilities.putAll(gson.fromJson(requested, new TypeToken<Map<String, Object>>(){}.getType()));
+        return capabilities;
+    }
+
+    private static Map<String, Object> error(String error, String message){
+        Map<String, Object> value = new HashMap<>();
+        value.put("error", error);
+        value.put("message", message);
+        value.put("stacktrace", "");
+        return value;
+    }
+
+    private static Map<String, Object> rect(int x, int y, int width, int height){
+        Map<String, Object> value = new HashMap<>();
+        value.put("x", x);
+        value.put("y", y);
+        value.put("width", width);
+        value.put("height", height);
+        return value;
+    }
+
+    private JsonObject readBody(HttpExchange exchange) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonElement body = new JsonParser().parse(reader);
+            return body.isJsonObject() ? body.getAsJsonObject() : new JsonObject();
+        }
+    }
+
+    private void respond(HttpExchange exchange, String command, int status, Object value) throws IOException {
+        commandCounts.computeIfAbsent(command, c -> new AtomicLong()).incrementAndGet();
+        long latency = latencies.getOrDefault(command, defaultLatencyMillis);
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] response = gson.toJson(Collections.singletonMap("value", value)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(response);
+        }
+    }
+
+    private static byte[] blankPng() throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "png", png);
+        return png.toByteArray();
+    }
+
+    //endregion
+
+    private static class Session {
+
+        private final String id;
+        private final Map<String, Object> capabilities;
+        private volatile String url = "about:blank";
+
+        private Session(String id, Map<String, Object> capabilities){
+            this.id = id;
+            this.capabilities = capabilities;
+        }
+    }
+
+    private static class Element {
+
+        private final String id;
+        private final String text;
+
+        private Element(String id, String text){
+            this.id = id;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package framework;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to record how long the driver sessions take to start and to be leased, per session key.
+ */
+public class StartupMetrics {
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * This method is used to record the time a new session took to start.
+     */
+    public void recordStartup(String key, long nanos){
+        stats.computeIfAbsent(key, k -> new Stats()).recordStartup(nanos);
+    }
+
+    /**
+     * This method is used to record the time a thread waited for its session, and if it was already started.
+     */
+    public void recordLease(String key, boolean warm, long nanos){
+        stats.computeIfAbsent(key, k -> new Stats()).recordLease(warm, nanos);
+    }
+
+    public Stats get(String key){
+        return stats.getOrDefault(key, new Stats());
+    }
+
+    /**
+     * This method is used to return the metrics of every session key, sorted by key.
+     */
+    public Map<String, Stats> getAll(){
+        return Collections.unmodifiableMap(new TreeMap<>(stats));
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Stats> entry: getAll().entrySet())
+            report.append(entry.getKey()).append(' ').append(entry.getValue()).append(System.lineSeparator());
+        return report.toString();
+    }
+
+    public static class Stats {
+
+        private long startups;
+        private long totalStartupNanos;
+        private long minStartupNanos = Long.MAX_VALUE;
+        private long maxStartupNanos;
+        private long warmLeases;
+        private long coldLeases;
+        private long totalLeaseNanos;
+
+        private synchronized void recordStartup(long nanos){
+            startups++;
+            totalStartupNanos += nanos;
+            minStartupNanos = Math.min(minStartupNanos, nanos);
+            maxStartupNanos = Math.max(maxStartupNanos, nanos);
+        }
+
+        private synchronized void recordLease(boolean warm, long nanos){
+            if (warm) warmLeases++;
+            else coldLeases++;
+            totalLeaseNanos += nanos;
+        }
+
+        public synchronized long getStartups() { return startups; }
+
+        public synchronized double getAverageStartupMillis(){
+            return startups == 0 ? 0 : toMillis(totalStartupNanos) / startups;
+        }
+
+        public synchronized double getMinStartupMillis() { return startups == 0 ? 0 : toMillis(minStartupNanos); }
+
+        public synchronized double getMaxStartupMillis() { return toMillis(maxStartupNanos); }
+
+        /**
+         * This method is used to return how many leases got a session that was already started.
+         */
+        public synchronized long getWarmLeases() { return warmLeases; }
+
+        public synchronized long getColdLeases() { return coldLeases; }
+
+        public synchronized double getAverageLeaseMillis(){
+            long leases = warmLeases + coldLeases;
+            return leases == 0 ? 0 : toMillis(totalLeaseNanos) / leases;
+        }
+
+        private static double toMillis(long nanos){
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public synchronized String toString(){
+            return String.format("startups=%d avgStartupMs=%.1f minStartupMs=%.1f maxStartupMs=%.1f warmLeases=%d " +
+                            "coldLeases=%d avgLeaseMs=%.1f", startups, getAverageStartupMillis(), getMinStartupMillis(),
+                    getMaxStartupMillis(), warmLeases, coldLeases, getAverageLeaseMillis());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package framework;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * This class is used to remember how long every test takes, from the moment it begins until its facade session
+ * is released, on a properties file shared by every run of the host. The durations are used to balance the shards.
+ */
+public class TestDurations {
+
+    private static final Path DEFAULT_FILE =
+            Paths.get(System.getProperty("java.io.tmpdir"), "automation-framework-test-durations.properties");
+    private static final double WEIGHT = 0.3;
+    private static final ThreadLocal<RunningTest> runningTest = new ThreadLocal<>();
+    private static volatile Path storeFile = DEFAULT_FILE;
+
+    /**
+     * This enum is used to tell which resource a test needs, a browser or a mobile device.
+     */
+    public enum Resource { WEB, MOBILE }
+
+    /**
+     * This method is used to keep the durations on another file, like one shared by the hosts.
+     */
+    public static void setStoreFile(Path file){
+        storeFile = file;
+    }
+
+    //region Duration Capture
+
+    /**
+     * This method is used to start timing a test on the current thread. The duration is recorded when the
+     * facade session of the thread is released or shut down, or when finish is called.
+     */
+    public static void begin(String test, Resource resource){
+        runningTest.set(new RunningTest(test, resource, System.nanoTime()));
+    }
+
+    /**
+     * This method is used to record the test begun on the current thread, if any.
+     */
+    public static void finish(){
+        RunningTest test = runningTest.get();
+        if (test == null) return;
+        runningTest.remove();
+        record(test.name, test.resource, (System.nanoTime() - test.startNanos) / 1_000_000L);
+    }
+
+    /**
+     * This method is used to record a duration. The estimate moves towards the new duration, so a single slow
+     * run doesn't outweigh the previous ones. The store is read and written holding a lock on a sibling lock
+     * file, so the JVMs of the other shards don't overwrite the durations recorded at the same time.
+     */
+    public static synchronized void record(String test, Resource resource, long millis){
+        Path file = storeFile.toAbsolutePath();
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                Properties durations = loadProperties();
+                Estimate previous = Estimate.parse(durations.getProperty(test));
+                double estimate = previous == null ? millis : previous.millis + WEIGHT * (millis - previous.millis);
+                int runs = previous == null ? 1 : previous.runs + 1;
+                durations.setProperty(test, new Estimate(estimate, runs, resource).format());
+                Path temporary = Files.createTempFile(file.getParent(), "test-durations", ".tmp");
+                try (OutputStream output = Files.newOutputStream(temporary)) {
+                    durations.store(output, "Estimated duration in milliseconds, runs and resource of every test");
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The test durations couldn't be written on %s", storeFile), e);
+        }
+    }
+
+    //endregion
+
+    /**
+     * This method is used to return the estimate of every test recorded, sorted by name.
+     */
+    public static synchronized Map<String, Estimate> load(){
+        Map<String, Estimate> estimates = new TreeMap<>();
+        Properties durations = loadProperties();
+        for (String test: durations.stringPropertyNames()) {
+            Estimate estimate = Estimate.parse(durations.getProperty(test));
+            if (estimate != null) estimates.put(test, estimate);
+        }
+        return estimates;
+    }
+
+    private static Properties loadProperties(){
+        Properties durations = new Properties();
+        if (!Files.exists(storeFile)) return durations;
+        try (InputStream input = Files.newInputStream(storeFile)) {
+            durations.load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("The test durations couldn't be read from %s", storeFile), e);
+        }
+        return durations;
+    }
+
+    /**
+     * This class is used to keep the estimated duration of a test.
+     */
+    public static final class Estimate {
+
+        private final double millis;
+        private final int runs;
+        private final Resource resource;
+
+        private Estimate(double millis, int runs, Resource resource){
+            this.millis = millis;
+            this.runs = runs;
+            this.resource = resource;
+        }
+
+        private static Estimate parse(String value){
+            if (value == null) return null;
+            String[] fields = value.split(",");
+            try {
+                return new Estimate(Double.parseDouble(fields[0]), Integer.parseInt(fields[1]),
+                        Resource.valueOf(fields[2]));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        private String format(){
+            return String.format(Locale.ROOT, "%.0f,%d,%s", millis, runs, resource);
+        }
+
+        public double getMillis() { return millis; }
+
+        public int getRuns() { return runs; }
+
+        public Resource getResource() { return resource; }
+
+        @Override
+        public String toString() { return format(); }
+    }
+
+    private static final class RunningTest {
+
+        private final String name;
+        private final Resource resource;
+        private final long startNanos;
+
+        private RunningTest(String name, Resource resource, long startNanos){
+            this.name = name;
+            this.resource = resource;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -2,42 +2,45 @@ package framework;
 
 import io.appium.java_client.MobileElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.io.File;
+import java.nio.file.Path;
 
-import static framework.AppiumDriverFacade.appiumDriverFacade;
 import static java.io.File.separator;
 
 public class Utils {
 
-    public static final WebDriverWait wait = new WebDriverWait(appiumDriverFacade, 60);
+    public static final int DOWNLOAD_TIMEOUT_SECONDS = 60;
 
     /**
      * This method is used to generate a pause to the test during a certain period of time.
      */
     public static void pauseSeconds(int seconds){
+        long start = System.nanoTime();
         try {
             Thread.sleep(seconds*1000);
         } catch (InterruptedException e) {
             e.printStackTrace();
+        } finally {
+            Instrumentation.recordPause(System.nanoTime() - start);
         }
     }
 
     public static void waitForElementVisibility(MobileElement element){
         try{
-        wait.until(ExpectedConditions.visibilityOf(element));
+        AppiumDriverFacade.getWaitFactory().until("elementVisibility", ExpectedConditions.visibilityOf(element), 60);
         }catch (IndexOutOfBoundsException | NullPointerException e){
             throw new IllegalArgumentException("There couldn't be found any element with the selector used");
         }
     }
 
     /**
-     * This method is used to wait until a file is downloaded.
+     * This method is used to wait until a file is downloaded. It returns the newest file of the directory once
+     * there isn't any partial download left on it.
      */
-    public static void waitForFileDownload(String downloadDirectory)
+    public static Path waitForFileDownload(String downloadDirectory)
     {
-        //falta Implementacion
+        return DownloadWatcher.awaitIdle(downloadDirectory, DOWNLOAD_TIMEOUT_SECONDS);
     }
 
     public static String firefoxSeleniumDriver(){
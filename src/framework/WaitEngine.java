@@ -0,0 +1,58 @@
+package framework;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * This class is used to wait until a condition holds, using the given seconds only as an upper bound.
+ */
+public class WaitEngine {
+
+    /**
+     * This method is used to poll the condition until it returns a value other than null or false, or until the
+     * seconds to wait are over. Returns whether the condition was met.
+     */
+    public static boolean until(WebDriver driver, Function<? super WebDriver, ?> condition, int secondsToWait,
+                                PollingStrategy pollingStrategy){
+        return poll(driver, condition, secondsToWait * 1_000_000_000L, pollingStrategy,
+                e -> e instanceof WebDriverException, new int[1]) != null;
+    }
+
+    /**
+     * This method is used to poll the condition until it returns a value other than null or false, or until the
+     * nanoseconds to wait are over, and return that value or null. Exceptions accepted by the ignored predicate
+     * count as a failed check, any other is thrown. The amount of checks is added to the polls counter.
+     */
+    public static <T> T poll(WebDriver driver, Function<? super WebDriver, T> condition, long nanosToWait,
+                             PollingStrategy pollingStrategy, Predicate<RuntimeException> ignored, int[] polls){
+        long deadline = System.nanoTime() + nanosToWait;
+        int attempt = 0;
+        while (true) {
+            polls[0]++;
+            T value = check(driver, condition, ignored);
+            if (value != null && !Boolean.FALSE.equals(value)) return value;
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000L;
+            if (remainingMillis <= 0) return null;
+            attempt++;
+            try {
+                Thread.sleep(Math.min(pollingStrategy.nextDelayMillis(attempt), remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static <T> T check(WebDriver driver, Function<? super WebDriver, T> condition,
+                               Predicate<RuntimeException> ignored){
+        try {
+            return condition.apply(driver);
+        } catch (RuntimeException e) {
+            if (ignored.test(e)) return null;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package framework;
+
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * This class is used to build the waits of a driver session, with its own timeout, polling strategy and ignored
+ * exceptions, and to record how long every condition waited and how many times it was polled.
+ */
+public class WaitFactory {
+
+    private static final Map<WebDriver, WaitFactory> factories = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final PollingStrategy DEFAULT_POLLING = PollingStrategy.exponential(50, 500);
+
+    private final WeakReference<WebDriver> driver;
+    private final Set<Class<? extends RuntimeException>> ignoredExceptions = new CopyOnWriteArraySet<>(
+            Arrays.asList(NotFoundException.class, StaleElementReferenceException.class));
+    private final Map<String, WaitStats> stats = new ConcurrentHashMap<>();
+    private volatile PollingStrategy pollingStrategy;
+    private volatile int timeoutSeconds = 60;
+
+    private WaitFactory(WebDriver driver){
+        this.driver = new WeakReference<>(driver);
+    }
+
+    /**
+     * This method is used to return the wait factory of a driver session.
+     */
+    public static WaitFactory forDriver(WebDriver driver){
+        return factories.computeIfAbsent(driver, WaitFactory::new);
+    }
+
+    //region Factory Configuration
+
+    public WaitFactory withTimeout(int seconds){
+        if (seconds < 0) throw new IllegalArgumentException("The timeout can't be negative");
+        timeoutSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * This method is used to set how often the conditions are checked, see PollingStrategy fixed, exponential
+     * and jittered. It applies to the post conditions of the facade actions too, instead of the polling of the
+     * facade.
+     */
+    public WaitFactory withPolling(PollingStrategy strategy){
+        pollingStrategy = strategy;
+        return this;
+    }
+
+    /**
+     * This method is used to treat the given exception as a failed check instead of ending the wait.
+     */
+    public WaitFactory ignoring(Class<? extends RuntimeException> exception){
+        ignoredExceptions.add(exception);
+        return this;
+    }
+
+    public int getTimeoutSeconds() { return timeoutSeconds; }
+
+    //endregion
+
+    //region Waits
+
+    /**
+     * This method is used to wait up to the factory timeout until the condition returns a value other than null
+     * or false, and return it. The wait is recorded under the given name.
+     */
+    public <T> T until(String name, Function<? super WebDriver, T> condition){
+        return until(name, condition, timeoutSeconds);
+    }
+
+    /**
+     * This method is used to wait up to the given seconds until the condition returns a value other than null or
+     * false, and return it. Throws a TimeoutException when the seconds are over.
+     */
+    public <T> T until(String name, Function<? super WebDriver, T> condition, int secondsToWait){
+        int[] polls = new int[1];
+        T value = poll(name, condition, TimeUnit.SECONDS.toNanos(secondsToWait), DEFAULT_POLLING, this::isIgnored,
+                polls);
+        if (value == null)
+            throw new TimeoutException(String.format(
+                    "The condition %s wasn't met in %d seconds after %d polls", name, secondsToWait, polls[0]));
+        return value;
+    }
+
+    /**
+     * This method is used to poll a condition of the facades, like the post condition of an action, and record
+     * it under the given name. The polling of the factory is used when it was set, otherwise the given one.
+     * Returns the value, or null when the nanoseconds are over.
+     */
+    <T> T poll(String name, Function<? super WebDriver, T> condition, long nanosToWait, PollingStrategy defaultPolling,
+               Predicate<RuntimeException> ignored, int[] polls){
+        long start = System.nanoTime();
+        PollingStrategy polling = pollingStrategy != null ? pollingStrategy : defaultPolling;
+        T value = null;
+        try {
+            value = WaitEngine.poll(getDriver(), condition, nanosToWait, polling, ignored, polls);
+        } finally {
+            stats.computeIfAbsent(name, n -> new WaitStats()).record(System.nanoTime() - start, polls[0], value != null);
+        }
+        return value;
+    }
+
+    /**
+     * This method is used to wait up to the given seconds until the condition holds. Returns whether it was met.
+     */
+    public boolean meets(String name, Function<? super WebDriver, ?> condition, int secondsToWait){
+        try {
+            until(name, condition, secondsToWait);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private WebDriver getDriver(){
+        WebDriver session = driver.get();
+        if (session == null) throw new IllegalStateException("The driver session of the wait factory was closed");
+        return session;
+    }
+
+    private boolean isIgnored(RuntimeException exception){
+        for (Class<? extends RuntimeException> ignored: ignoredExceptions)
+            if (ignored.isInstance(exception)) return true;
+        return false;
+    }
+
+    //endregion
+
+    /**
+     * This method is used to return the waits of every condition name, sorted by name.
+     */
+    public Map<String, WaitStats> getStats(){
+        return Collections.unmodifiableMap(new TreeMap<>(stats));
+    }
+
+    public static class WaitStats {
+
+        private final LatencyHistogram waits = new LatencyHistogram();
+        private final AtomicLong polls = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        private void record(long nanos, int conditionPolls, boolean met){
+            waits.record(nanos);
+            polls.addAndGet(conditionPolls);
+            if (!met) timeouts.incrementAndGet();
+        }
+
+        /**
+         * This method is used to return the time the condition waited.
+         */
+        public LatencyHistogram getWaits() { return waits; }
+
+        public long getPolls() { return polls.get(); }
+
+        public long getTimeouts() { return timeouts.get(); }
+
+        public double getPollsPerWait(){
+            long count = waits.getCount();
+            return count == 0 ? 0 : polls.get() / (double) count;
+        }
+
+        @Override
+        public String toString(){
+            return String.format(Locale.ROOT, "waits=%d totalMs=%.1f avgMs=%.1f polls=%d pollsPerWait=%.1f timeouts=%d",
+                    waits.getCount(), waits.getTotalMillis(), waits.getAverageMillis(), getPolls(), getPollsPerWait(),
+                    getTimeouts());
+        }
+    }
+}
@@ -1,95 +1,390 @@
 package framework;
 
+import com.google.gson.JsonObject;
 import org.openqa.selenium.*;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.remote.CapabilityType;
 import org.openqa.selenium.support.ui.Select;
-import java.io.File;
-import java.net.MalformedURLException;
-import java.net.URL;
+import org.openqa.selenium.support.ui.UnexpectedTagNameException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 public class WebDriverFacade {
 
-    public static WebDriver webDriverFacade;
+    private static final DriverPool<WebDriver> driverPool =
+            new DriverPool<>(Runtime.getRuntime().availableProcessors());
+    private static final String NEW_PAGE =
+            "var leaving = window.__frameworkLeaving;" +
+            "return leaving === undefined || leaving !== location.href ? location.origin + location.pathname : null;";
+    private static volatile PostCondition postCondition = PostCondition.domQuiet(300);
+    private static final Logger logger = Logger.getLogger(WebDriverFacade.class.getName());
+    private static volatile PollingStrategy pollingStrategy = PollingStrategy.exponential(50, 500);
+    private static volatile PostCondition navigationReadiness;
+    private static final Map<String, Supplier<WebDriver>> sessionFactories = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> warmSessions = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> pendingRefills = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, Set<String>> visitedOrigins = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ExecutorService sessionRefills = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "session-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     //region Driver Definition
 
     /**
-     * This method is used to initialize the driver.
+     * This method is used to initialize the driver. The session is bound to the current thread and reused from
+     * the driver pool when another thread released a session with the same device, size and download directory.
      */
     public static void createDriver(String device, String size, String downloadDirectory){
-        final String URL_STRING = "http://127.0.0.1:4723/wd/hub";
-        try {
-            URL url = new URL(URL_STRING);
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        }
-        switch (device.toUpperCase()){
-            case "FIREFOX":
-                firefoxDriverInitialize();
-                break;
-            case "CHROME":
-                chromeDriverInitialize(downloadDirectory);
-                break;
-            case "EDGE":
-                edgeDriverInitialize();
-                break;
-            default:
-                throw new IllegalArgumentException(String.format("The selected driver %s is not supported", device));
+        createDriver(device, size, downloadDirectory, LaunchProfile.standard());
+    }
+
+    /**
+     * This method is used to initialize the driver launching the browser with the given profile name:
+     * STANDARD, HEADLESS or LOW_OVERHEAD.
+     */
+    public static void createDriver(String device, String size, String downloadDirectory, String launchProfile){
+        createDriver(device, size, downloadDirectory, LaunchProfile.named(launchProfile));
+    }
+
+    /**
+     * This method is used to initialize the driver launching the browser with the given profile.
+     */
+    public static void createDriver(String device, String size, String downloadDirectory, LaunchProfile launchProfile){
+        String sessionKey = getSessionKey(device, size, downloadDirectory, launchProfile);
+        driverPool.lease(sessionKey, sessionFactories.computeIfAbsent(sessionKey,
+                key -> driverFactory(device, size, downloadDirectory, launchProfile)));
+    }
+
+    /**
+     * This method is used to start the given amount of sessions on the background and leave them idle in the driver
+     * pool, so the next calls to createDriver with the same device, size and download directory don't wait for the
+     * browser to start. Returns the amount of sessions that were started.
+     */
+    public static int prewarmDrivers(String device, String size, String downloadDirectory, int sessions){
+        return prewarmDrivers(device, size, downloadDirectory, LaunchProfile.standard(), sessions);
+    }
+
+    /**
+     * This method is used to start on the background the given amount of sessions launched with the given profile.
+     * The pool keeps that amount of idle sessions: sessions closed or restarted on release are replaced on the
+     * background.
+     */
+    public static int prewarmDrivers(String device, String size, String downloadDirectory, LaunchProfile launchProfile,
+                                     int sessions){
+        String sessionKey = getSessionKey(device, size, downloadDirectory, launchProfile);
+        Supplier<WebDriver> factory = sessionFactories.computeIfAbsent(sessionKey,
+                key -> driverFactory(device, size, downloadDirectory, launchProfile));
+        warmSessions.put(sessionKey, sessions);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, sessions));
+        List<Future<Boolean>> startups = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) startups.add(executor.submit(() -> driverPool.prepare(sessionKey, factory)));
+        executor.shutdown();
+        int started = 0;
+        for (Future<Boolean> startup: startups) {
+            try {
+                if (startup.get()) started++;
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The thread was interrupted while starting the driver sessions", e);
+            }
         }
-        switch (size.toUpperCase()){
-                case "SMALL":
-                    resizeWindows(400, 600);
-                    break;
-                case "MEDIUM":
-                    resizeWindows(768, 1024);
+        return started;
+    }
+
+    /**
+     * This method is used to return the startup and lease times of the sessions, per device, size and download
+     * directory, to size the amount of sessions to prewarm.
+     */
+    public static StartupMetrics getStartupMetrics(){
+        return driverPool.getMetrics();
+    }
+
+    private static String getSessionKey(String device, String size, String downloadDirectory,
+                                        LaunchProfile launchProfile){
+        return String.format("%s:%s:%s:%s", device.toUpperCase(), size.toUpperCase(), downloadDirectory,
+                launchProfile.getKey());
+    }
+
+    private static Supplier<WebDriver> driverFactory(String device, String size, String downloadDirectory,
+                                                     LaunchProfile launchProfile){
+        String deviceType = device.toUpperCase();
+        Dimension resolution = getWindowsResolution(size);
+        return () -> {
+            WebDriver driver;
+            switch (deviceType){
+                case "FIREFOX":
+                    driver = firefoxDriverInitialize(launchProfile);
                     break;
-                case "LARGE":
-                    resizeWindows(1280, 1024);
+                case "CHROME":
+                    driver = chromeDriverInitialize(downloadDirectory, launchProfile);
                     break;
-                case "FULL":
-                    maximizeWindows();
+                case "EDGE":
+                    driver = edgeDriverInitialize(launchProfile);
                     break;
                 default:
-                    throw new IllegalArgumentException(String.format("The size %s is not supported", size));
+                    throw new IllegalArgumentException(String.format("The selected driver %s is not supported", device));
+            }
+            if (resolution == null) driver.manage().window().maximize();
+            else driver.manage().window().setSize(resolution);
+            return Instrumentation.instrument(driver);
+        };
+    }
+
+    /**
+     * This method is used to return the browser resolution of a size, or null when the windows must be maximized.
+     */
+    private static Dimension getWindowsResolution(String size){
+        switch (size.toUpperCase()){
+            case "SMALL":
+                return new Dimension(400, 600);
+            case "MEDIUM":
+                return new Dimension(768, 1024);
+            case "LARGE":
+                return new Dimension(1280, 1024);
+            case "FULL":
+                return null;
+            default:
+                throw new IllegalArgumentException(String.format("The size %s is not supported", size));
+        }
+    }
+
+    /**
+     * This method is used to return the driver session bound to the current thread.
+     */
+    public static WebDriver getDriver(){
+        return driverPool.current();
+    }
+
+    /**
+     * This method is used to return the driver session bound to the current thread, like the public field it
+     * replaces, which was shared by every thread.
+     * @deprecated use getDriver
+     */
+    @Deprecated
+    public static WebDriver webDriverFacade(){
+        return getDriver();
+    }
+
+    /**
+     * This method is used to return the driver pool shared by every thread.
+     */
+    public static DriverPool<WebDriver> getDriverPool(){
+        return driverPool;
+    }
+
+    /**
+     * This method is used to set the condition that ends the wait after an action. The seconds to wait of every
+     * action are only an upper bound, the action returns as soon as the post condition holds.
+     */
+    public static void setPostCondition(PostCondition condition){
+        postCondition = condition;
+    }
+
+    /**
+     * This method is used to set the condition that tells when a page is ready after open, refresh or back, like
+     * PostCondition.documentReady, networkIdle or a hook of the page framework. Sessions launched with the EAGER
+     * or NONE page load strategy return from the navigation early and wait for it instead. By default the
+     * navigations wait for the post condition.
+     */
+    public static void setNavigationReadiness(PostCondition readiness){
+        navigationReadiness = readiness;
+    }
+
+    /**
+     * This method is used to set how often the post condition is checked while waiting, on the sessions whose
+     * wait factory doesn't have a polling of its own.
+     */
+    public static void setPollingStrategy(PollingStrategy strategy){
+        pollingStrategy = strategy;
+    }
+
+    /**
+     * This method is used to wait up to the given seconds until the condition holds. Returns whether it was met.
+     */
+    public static boolean waitUntil(Function<WebDriver, ?> condition, int secondsToWait){
+        return getWaitFactory().meets("WebDriverFacade.waitUntil", condition, secondsToWait);
+    }
+
+    /**
+     * This method is used to return the wait factory of the current driver session, to set its timeout, polling
+     * and ignored exceptions and to read how long its conditions waited.
+     */
+    public static WaitFactory getWaitFactory(){
+        return WaitFactory.forDriver(getDriver());
+    }
+
+    /**
+     * This method is used to set the implicit wait of the current driver session. The element probes turn it off
+     * while they run, so negative checks don't wait for it.
+     */
+    public static void setImplicitWait(int seconds){
+        ElementProbe.setImplicitWait(getDriver(), TimeUnit.SECONDS.toMillis(seconds));
+    }
+
+    /**
+     * This method is used to run an action and wait up to the given seconds until the post condition holds. The
+     * time of the action is recorded under the given facade method name.
+     */
+    private static void performAndWait(String method, WebElement target, int secondsToWait, Runnable action){
+        long start = System.nanoTime();
+        try {
+            if (secondsToWait <= 0) {
+                action.run();
+                return;
+            }
+            WebDriver driver = getDriver();
+            Function<WebDriver, ?> condition = postCondition.prepare(driver, target);
+            action.run();
+            long waitStart = System.nanoTime();
+            Object met = WaitFactory.forDriver(driver).poll(method, condition, TimeUnit.SECONDS.toNanos(secondsToWait),
+                    pollingStrategy, e -> e instanceof WebDriverException, new int[1]);
+            Instrumentation.recordPostConditionWait(waitStart);
+            if (met == null && postCondition != PostCondition.PAUSE)
+                logger.warning(String.format("The post condition of %s wasn't met in %d seconds", method,
+                        secondsToWait));
+        } finally {
+            Instrumentation.recordFacadeMethod(method, start);
+        }
+    }
+
+    /**
+     * This method is used to run a navigation and wait up to the given seconds until the new page is ready. The
+     * old document is marked before the navigation, so the readiness is only checked on the new one, and the time
+     * to ready is recorded per page.
+     */
+    private static void navigateAndWait(String method, int secondsToWait, Runnable navigation){
+        long start = System.nanoTime();
+        try {
+            if (secondsToWait <= 0) {
+                navigation.run();
+                return;
+            }
+            WebDriver driver = getDriver();
+            try {
+                ((JavascriptExecutor) driver).executeScript("window.__frameworkLeaving = location.href;");
+            } catch (WebDriverException e) {
+                // The current page can't run scripts, like an alert is open, so any page counts as the new one
+            }
+            PostCondition readiness = navigationReadiness != null ? navigationReadiness : postCondition;
+            Function<WebDriver, ?> condition = readiness.prepare(driver, null);
+            navigation.run();
+            long waitStart = System.nanoTime();
+            String page = WaitFactory.forDriver(driver).poll(method, d -> {
+                String newPage = (String) ((JavascriptExecutor) d).executeScript(NEW_PAGE);
+                if (newPage == null) return null;
+                Object ready = condition.apply(d);
+                return ready == null || Boolean.FALSE.equals(ready) ? null : newPage;
+            }, TimeUnit.SECONDS.toNanos(secondsToWait), pollingStrategy, e -> e instanceof WebDriverException,
+                    new int[1]);
+            Instrumentation.recordPostConditionWait(waitStart);
+            if (page != null) {
+                Instrumentation.recordTimeToReady(page, start);
+                addVisitedOrigin(driver, page);
+            }
+        } finally {
+            Instrumentation.recordFacadeMethod(method, start);
         }
     }
 
     /**
      * This method is used to initialize the Firefox driver.
      */
-    public static void firefoxDriverInitialize(){
+    public static WebDriver firefoxDriverInitialize(){
+        return firefoxDriverInitialize(LaunchProfile.standard());
+    }
+
+    /**
+     * This method is used to initialize the Firefox driver with the given launch profile.
+     */
+    public static WebDriver firefoxDriverInitialize(LaunchProfile launchProfile){
         System.setProperty("webdriver.gecko.driver", Utils.firefoxSeleniumDriver());
-        webDriverFacade = new FirefoxDriver();
+        FirefoxOptions firefoxOptions = new FirefoxOptions();
+        launchProfile.applyTo(firefoxOptions);
+        FirefoxDriver driver = new FirefoxDriver(firefoxOptions);
+        ResourceInterceptor.register(driver, launchProfile.getResourcePolicy());
+        return driver;
     }
 
     /**
      * This method is used to initialize the Chrome driver.
      */
-    public static void chromeDriverInitialize(String downloadDirectory){
+    public static WebDriver chromeDriverInitialize(String downloadDirectory){
+        return chromeDriverInitialize(downloadDirectory, LaunchProfile.standard());
+    }
+
+    /**
+     * This method is used to initialize the Chrome driver with the given launch profile.
+     */
+    public static WebDriver chromeDriverInitialize(String downloadDirectory, LaunchProfile launchProfile){
         ChromeOptions chromeOptions = new ChromeOptions();
         System.setProperty("webdriver.chrome.driver", Utils.chromeSeleniumDriver());
         HashMap<String, Object> chromePrefs = new HashMap<>();
         chromePrefs.put("credentials_enable_service", false);
         if(downloadDirectory != null) chromePrefs.put("download.default_directory", downloadDirectory);
-        chromeOptions.setExperimentalOption("prefs", chromePrefs);
         chromeOptions.addArguments("chrome.switches", "--disable-infobars");
         chromeOptions.addArguments("test-type");
         chromeOptions.addArguments("--disable-extensions");
         chromeOptions.addArguments("no-sandbox");
-        webDriverFacade = new ChromeDriver(chromeOptions);
+        launchProfile.applyTo(chromeOptions, chromePrefs);
+        chromeOptions.setExperimentalOption("prefs", chromePrefs);
+        ChromeDriverService service = ChromeDriverService.createDefaultService();
+        ChromeDriver driver = new ChromeDriver(service, chromeOptions);
+        DevToolsClient.register(driver, service.getUrl());
+        try {
+            ResourceInterceptor.install(driver, service.getUrl(), launchProfile.getResourcePolicy());
+        } catch (RuntimeException e) {
+            driver.quit();
+            throw e;
+        }
+        return driver;
     }
 
     /**
      * This method is used to initialize the Microsoft EDGE driver.
      */
-    public static void edgeDriverInitialize(){
-        webDriverFacade = new EdgeDriver();
+    public static WebDriver edgeDriverInitialize(){
+        return new EdgeDriver();
+    }
+
+    /**
+     * This method is used to initialize the Microsoft EDGE driver. EDGE can't be launched without window, so
+     * headless profiles are not supported.
+     */
+    public static WebDriver edgeDriverInitialize(LaunchProfile launchProfile){
+        if (launchProfile.isHeadless())
+            throw new IllegalArgumentException(String.format(
+                    "The launch profile %s is not supported by EDGE", launchProfile.getName()));
+        if (!launchProfile.getResourcePolicy().isEmpty())
+            throw new IllegalArgumentException("Resource policies are not supported by EDGE");
+        if (launchProfile.getPageLoadStrategy() == PageLoadStrategy.NORMAL) return edgeDriverInitialize();
+        EdgeOptions edgeOptions = new EdgeOptions();
+        edgeOptions.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, launchProfile.getPageLoadStrategy().toString());
+        return new EdgeDriver(edgeOptions);
     }
 
     //endregion
@@ -100,15 +395,27 @@ public class WebDriverFacade {
      * Opens the page at the given URL.
      */
     public static void open(String url, int secondsToWait){
-        webDriverFacade.navigate().to(url);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        getElementCache().invalidate();
+        getWindowRegistry().markCurrentChanged();
+        navigateAndWait("WebDriverFacade.open", secondsToWait, () -> getDriver().navigate().to(url));
+        ResourceInterceptor interceptor = ResourceInterceptor.forDriver(getDriver());
+        if (interceptor != null) interceptor.recordPage(getDriver());
+    }
+
+    /**
+     * This method is used to return the blocked and served requests of every page opened by the current session,
+     * or an empty map when the session was launched without resource policy.
+     */
+    public static Map<String, ResourceInterceptor.PageStats> getResourceStats(){
+        ResourceInterceptor interceptor = ResourceInterceptor.forDriver(getDriver());
+        return interceptor == null ? Collections.emptyMap() : interceptor.getStats();
     }
 
     /**
      * This method is used to maximize the browser windows.
      */
     public static void maximizeWindows(){
-        webDriverFacade.manage().window().maximize();
+        getDriver().manage().window().maximize();
     }
 
     /**
@@ -116,64 +423,185 @@ public class WebDriverFacade {
      */
     public static void resizeWindows(int width, int height){
         Dimension resolution = new Dimension(width, height);
-        webDriverFacade.manage().window().setSize(resolution);
+        getDriver().manage().window().setSize(resolution);
     }
 
     /**
      * This method is used to refresh the current windows.
      */
     public static void refreshCurrentWindow(int secondsToWait){
-        webDriverFacade.navigate().refresh();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        getElementCache().invalidate();
+        getWindowRegistry().markCurrentChanged();
+        navigateAndWait("WebDriverFacade.refreshCurrentWindow", secondsToWait, () -> getDriver().navigate().refresh());
     }
 
     /**
      * This method is used to navigate to the previous windows.
      */
     public static void clickNavigateBackButton(int secondsToWait){
-        webDriverFacade.navigate().back();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        getElementCache().invalidate();
+        getWindowRegistry().markCurrentChanged();
+        navigateAndWait("WebDriverFacade.clickNavigateBackButton", secondsToWait, () -> getDriver().navigate().back());
     }
 
     /**
      * This method is used to scroll given x and y axis.
      */
     public static void scrollByAxis(int xAxis, int yAxis, int secondsToWait){
-        ((JavascriptExecutor) webDriverFacade).executeScript("window.scrollBy({xAxis}, {yAxis})");
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.scrollByAxis", null, secondsToWait,
+                () -> ((JavascriptExecutor) getDriver()).executeScript("window.scrollBy(arguments[0], arguments[1])",
+                        xAxis, yAxis));
     }
 
     /**
      * This method is used to scroll to an specific element on the page.
      */
     public static void scrollToElement(By locator, int secondsToWait){
-        int xAxis = getElementByAxis(locator, "x");
-        int yAxis = getElementByAxis(locator, "y");
-        scrollByAxis(xAxis, yAxis, 0);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        Point location = getElementGeometry(locator).getViewportLocation();
+        performAndWait("WebDriverFacade.scrollToElement", null, secondsToWait,
+                () -> scrollByAxis(location.x, location.y, 0));
     }
 
     /**
-     * This method is used to take a screenshot.
+     * This method is used to take a screenshot. The file is written on the background by the screenshot writer.
      */
     public static void takeScreenshot(String screenshotName, String saveDirectory){
-        File screenshot = ((TakesScreenshot)webDriverFacade).getScreenshotAs(OutputType.FILE);
-        screenshot.renameTo(new File(saveDirectory + screenshotName + ".png"));
+        long start = System.nanoTime();
+        try {
+            byte[] screenshot = ((TakesScreenshot)getDriver()).getScreenshotAs(OutputType.BYTES);
+            ScreenshotWriter.submit(screenshot, Paths.get(saveDirectory + screenshotName));
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.takeScreenshot", start);
+        }
     }
 
     /**
      * This method is used to close the current windows.
      */
     public static void closeCurrentWindow(){
-        webDriverFacade.close();
+        getElementCache().invalidate();
+        getDriver().close();
     }
 
     /**
      * This method is used to close the entire driver.
      */
     public static void shutDown(){
-        webDriverFacade.manage().deleteAllCookies();
-        webDriverFacade.quit();
+        try {
+            String sessionKey = driverPool.currentKey();
+            try {
+                getDriver().manage().deleteAllCookies();
+            } catch (WebDriverException e) {
+                // The browser may be gone already, the session is closed anyway
+            } finally {
+                driverPool.discard();
+            }
+            refillIdleSessions(sessionKey, false);
+        } finally {
+            TestDurations.finish();
+        }
+    }
+
+    /**
+     * This method is used to return the driver to the pool so another test can reuse the session. Sessions that
+     * can't be fully reset are closed instead, and a new one is started on the background to replace them.
+     */
+    public static void releaseDriver(){
+        try {
+            WebDriver driver = getDriver();
+            String sessionKey = driverPool.currentKey();
+            getElementCache().invalidate();
+            boolean reset = resetSession(driver);
+            getWindowRegistry().clear();
+            if (reset) driverPool.release();
+            else driverPool.discard();
+            refillIdleSessions(sessionKey, !reset);
+        } finally {
+            TestDurations.finish();
+        }
+    }
+
+    /**
+     * This method is used to leave the session as a new one: closes every window but the first one, clears the
+     * cookies of every domain and the storage of every origin the session visited, and opens a blank page. The
+     * WebDriver commands only reach the current domain, so the session is cleared through DevTools; returns false
+     * when it can't be, like the Firefox and EDGE sessions, which must be restarted.
+     */
+    private static boolean resetSession(WebDriver driver){
+        DevToolsClient devTools = DevToolsClient.forDriver(driver);
+        if (devTools == null) return false;
+        try {
+            Iterator<String> handles = driver.getWindowHandles().iterator();
+            String mainHandle = handles.next();
+            while (handles.hasNext()) {
+                driver.switchTo().window(handles.next());
+                addVisitedOrigin(driver, driver.getCurrentUrl());
+                driver.close();
+            }
+            driver.switchTo().window(mainHandle);
+            addVisitedOrigin(driver, driver.getCurrentUrl());
+            devTools.execute("Network.clearBrowserCookies", new JsonObject());
+            for (String origin: getVisitedOrigins(driver)) {
+                JsonObject parameters = new JsonObject();
+                parameters.addProperty("origin", origin);
+                parameters.addProperty("storageTypes", "all");
+                devTools.execute("Storage.clearDataForOrigin", parameters);
+            }
+            visitedOrigins.remove(driver);
+            driver.navigate().to("about:blank");
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void addVisitedOrigin(WebDriver driver, String url){
+        try {
+            URI uri = new URI(url);
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) return;
+            String origin = uri.getScheme() + "://" + uri.getHost() + (uri.getPort() < 0 ? "" : ":" + uri.getPort());
+            visitedOrigins.computeIfAbsent(driver, d -> Collections.synchronizedSet(new LinkedHashSet<>())).add(origin);
+        } catch (URISyntaxException e) {
+            // Pages without a valid URL don't have any origin to clear
+        }
+    }
+
+    private static List<String> getVisitedOrigins(WebDriver driver){
+        Set<String> origins = visitedOrigins.getOrDefault(driver, Collections.emptySet());
+        synchronized (origins) {
+            return new ArrayList<>(origins);
+        }
+    }
+
+    /**
+     * This method is used to start on the background the sessions missing to keep the amount of idle sessions
+     * prewarmed with the key, or at least one when a session was closed to replace it.
+     */
+    private static void refillIdleSessions(String sessionKey, boolean replaceClosed){
+        Supplier<WebDriver> factory = sessionKey == null ? null : sessionFactories.get(sessionKey);
+        if (factory == null) return;
+        AtomicInteger pending = pendingRefills.computeIfAbsent(sessionKey, key -> new AtomicInteger());
+        int missing = warmSessions.getOrDefault(sessionKey, 0) - driverPool.idleCount(sessionKey) - pending.get();
+        if (replaceClosed) missing = Math.max(missing, 1);
+        for (int i = 0; i < missing; i++) {
+            pending.incrementAndGet();
+            sessionRefills.submit(() -> {
+                try {
+                    driverPool.prepare(sessionKey, factory);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * This method is used to close every session waiting on the driver pool.
+     */
+    public static void shutDownIdleDrivers(){
+        driverPool.shutDownIdle();
     }
 
     //endregion
@@ -183,70 +611,93 @@ public class WebDriverFacade {
     /**
      * This method is used to get the current page URL.
      */
-    public static String getPageURL() { return webDriverFacade.getCurrentUrl();}
+    public static String getPageURL() { return getDriver().getCurrentUrl();}
 
     /**
      * This method is used to get the current page title.
      */
-    public static String getPageTitle() { return webDriverFacade.getTitle();}
+    public static String getPageTitle() { return getDriver().getTitle();}
 
     /**
      * This method is used to return the element according to the locator.
      */
     public static WebElement getElement(By locator){
-        WebElement element;
-        try{
-            element = webDriverFacade.findElement(locator);
-        }catch (NoSuchElementException e){
-            throw new NoSuchElementException(
-                    String.format("There couldn't be found any element with the following selector: %s", locator));
+        long start = System.nanoTime();
+        try {
+            return getElementCache().get(locator, () -> {
+                try{
+                    return getDriver().findElement(locator);
+                }catch (NoSuchElementException e){
+                    throw new NoSuchElementException(
+                            String.format("There couldn't be found any element with the following selector: %s", locator));
+                }
+            });
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.getElement", start);
         }
-        return element;
     }
 
     /**
      * This method is used to return the element according to the locator and an index.
      */
     public static WebElement getElement(By locator, int index){
-        if (index < 0) throw new IllegalArgumentException("Index must be greater than or equals zero");
-        List<WebElement> elements = getElements(locator);
+        long start = System.nanoTime();
         try {
-            return elements.get(index);
-        }catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(
-                    String.format("There couldn't be found any element with the following selector: %s with index %d",
-                    locator, index));
+            if (index < 0) throw new IllegalArgumentException("Index must be greater than or equals zero");
+            List<WebElement> elements = getElements(locator);
+            try {
+                return elements.get(index);
+            }catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        String.format("There couldn't be found any element with the following selector: %s with index %d",
+                        locator, index));
+            }
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.getElement", start);
         }
     }
 
     /**
-     * This method is used to return the element according to the locator and the element text.
+     * This method is used to return the first element of the locator whose text contains the element text. The
+     * texts are compared inside the browser, so the lookup takes a single round trip.
      */
     public static WebElement getElement(By locator, String elementText){
-        List<WebElement> elements = getElements(locator);
-        for (WebElement e: elements)
-        {
-            if(e.getText().contains(elementText)){
-                return e;
-            }
+        long start = System.nanoTime();
+        try {
+            WebElement element = ScriptLocator.findByText(getDriver(), locator, elementText);
+            if (element != null) return element;
+            throw new IllegalArgumentException(
+                    String.format("There couldn't be found any element with the following selector: %s with text %s",
+                            locator, elementText));
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.getElement", start);
         }
-        throw new IllegalArgumentException(
-                String.format("There couldn't be found any element with the following selector: %s with text %s",
-                        locator, elementText));
+    }
+
+    /**
+     * This method is used to return the cache of the elements found on the current driver session.
+     */
+    public static ElementCache getElementCache(){
+        return ElementCache.forDriver(getDriver());
     }
 
     /**
      * This method is used to return the elements according to the locator.
      */
     public static List<WebElement> getElements(By locator){
-        List<WebElement> elements;
-        try{
-            elements = webDriverFacade.findElements(locator);
-        }catch (NoSuchElementException e){
-            throw new NoSuchElementException(
-                    String.format("There couldn't be found any element with the following selector: %s", locator));
+        long start = System.nanoTime();
+        try {
+            List<WebElement> elements;
+            try{
+                elements = getDriver().findElements(locator);
+            }catch (NoSuchElementException e){
+                throw new NoSuchElementException(
+                        String.format("There couldn't be found any element with the following selector: %s", locator));
+            }
+            return elements;
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.getElements", start);
         }
-        return elements;
     }
 
     /**
@@ -270,14 +721,42 @@ public class WebDriverFacade {
      */
     public static List<String> getElementsText(By locator)
     {
-        List<WebElement> elements = getElements(locator);
         List<String> Texts = new ArrayList<>();
-        for (WebElement element: elements) {
+        for (ElementSnapshot element: getElementsSnapshot(locator)) {
             Texts.add(element.getText());
         }
         return Texts;
     }
 
+    /**
+     * This method is used to read the text, state, position and the given attributes of every element of the
+     * locator in a single round trip.
+     */
+    public static List<ElementSnapshot> getElementsSnapshot(By locator, String... attributes){
+        long start = System.nanoTime();
+        try {
+            return ElementSnapshot.capture(getDriver(), locator, attributes);
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.getElementsSnapshot", start);
+        }
+    }
+
+    /**
+     * This method is used to read the position, size and visibility of the first element of the locator, together
+     * with the viewport and scroll offsets, in a single round trip.
+     */
+    public static ElementGeometry getElementGeometry(By locator){
+        long start = System.nanoTime();
+        try {
+            ElementGeometry geometry = ElementGeometry.capture(getDriver(), locator);
+            if (geometry == null)
+                throw new NoSuchElementException(String.format("There isn't any element with the locator %s", locator));
+            return geometry;
+        } finally {
+            Instrumentation.recordFacadeMethod("WebDriverFacade.getElementGeometry", start);
+        }
+    }
+
     /**
      * This method is used to return the attribute's value of the element base on his locator.
      */
@@ -328,9 +807,9 @@ public class WebDriverFacade {
     public static int getElementByAxis(By locator, String axis){
         switch (axis.toUpperCase()){
             case "Y":
-                return getElement(locator).getLocation().y;
+                return getElementGeometry(locator).getRect().y;
             case "X":
-                return getElement(locator).getLocation().x;
+                return getElementGeometry(locator).getRect().x;
             default:
                 throw new IllegalArgumentException(String.format("The axis value %s is not supported", axis));
         }
@@ -344,16 +823,16 @@ public class WebDriverFacade {
      * This method is used to write on an element from locator.
      */
     public static void write(By locator, String text, int secondsToWait){
-        getElement(locator).sendKeys(text);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator);
+        performAndWait("WebDriverFacade.write", element, secondsToWait, () -> element.sendKeys(text));
     }
 
     /**
      * This method is used to write on an element from locator and element index.
      */
     public static void write(By locator, int index, String text, int secondsToWait){
-        getElement(locator, index).sendKeys(text);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator, index);
+        performAndWait("WebDriverFacade.write", element, secondsToWait, () -> element.sendKeys(text));
     }
 
     /**
@@ -391,8 +870,7 @@ public class WebDriverFacade {
      */
     public static void click(By locator, int secondsToWait){
         WebElement element = getElement(locator);
-        element.click();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.click", element, secondsToWait, element::click);
     }
 
     /**
@@ -400,8 +878,7 @@ public class WebDriverFacade {
      */
     public static void click(By locator, int index, int secondsToWait){
         WebElement element = getElement(locator, index);
-        element.click();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.click", element, secondsToWait, element::click);
     }
 
     /**
@@ -409,8 +886,7 @@ public class WebDriverFacade {
      */
     public static void click(By locator, String elementText, int secondsToWait){
         WebElement element = getElement(locator, elementText);
-        element.click();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.click", element, secondsToWait, element::click);
     }
 
     /**
@@ -418,8 +894,7 @@ public class WebDriverFacade {
      */
     public static void doubleClick(By locator, int secondsToWait){
         WebElement element = getElement(locator);
-        new Actions(webDriverFacade).doubleClick(element).perform();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.doubleClick", element, secondsToWait, () -> new Actions(getDriver()).doubleClick(element).perform());
     }
 
     /**
@@ -427,8 +902,7 @@ public class WebDriverFacade {
      */
     public static void doubleClick(By locator, int index, int secondsToWait){
         WebElement element = getElement(locator, index);
-        new Actions(webDriverFacade).doubleClick(element).perform();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.doubleClick", element, secondsToWait, () -> new Actions(getDriver()).doubleClick(element).perform());
     }
 
     /**
@@ -436,8 +910,7 @@ public class WebDriverFacade {
      */
     public static void doubleClick(By locator, String elementText, int secondsToWait){
         WebElement element = getElement(locator, elementText);
-        new Actions(webDriverFacade).doubleClick(element).perform();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.doubleClick", element, secondsToWait, () -> new Actions(getDriver()).doubleClick(element).perform());
     }
 
     /**
@@ -445,8 +918,7 @@ public class WebDriverFacade {
      */
     public static void rightClick(By locator, int secondsToWait){
         WebElement element = getElement(locator);
-        new Actions(webDriverFacade).contextClick(element).perform();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.rightClick", element, secondsToWait, () -> new Actions(getDriver()).contextClick(element).perform());
     }
 
     /**
@@ -454,8 +926,7 @@ public class WebDriverFacade {
      */
     public static void rightClick(By locator, int index, int secondsToWait){
         WebElement element = getElement(locator, index);
-        new Actions(webDriverFacade).contextClick(element).perform();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.rightClick", element, secondsToWait, () -> new Actions(getDriver()).contextClick(element).perform());
     }
 
     /**
@@ -463,8 +934,7 @@ public class WebDriverFacade {
      */
     public static void rightClick(By locator, String elementText, int secondsToWait){
         WebElement element = getElement(locator, elementText);
-        new Actions(webDriverFacade).contextClick(element).perform();
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        performAndWait("WebDriverFacade.rightClick", element, secondsToWait, () -> new Actions(getDriver()).contextClick(element).perform());
     }
 
     /**
@@ -472,7 +942,7 @@ public class WebDriverFacade {
      */
     public static void moveMouseToElement(By locator){
         WebElement element = getElement(locator);
-        new Actions(webDriverFacade).moveToElement(element).perform();
+        new Actions(getDriver()).moveToElement(element).perform();
     }
 
     /**
@@ -480,7 +950,7 @@ public class WebDriverFacade {
      */
     public static void moveMouseToElement(By locator, int index){
         WebElement element = getElement(locator, index);
-        new Actions(webDriverFacade).moveToElement(element).perform();
+        new Actions(getDriver()).moveToElement(element).perform();
     }
 
     /**
@@ -488,31 +958,34 @@ public class WebDriverFacade {
      */
     public static void moveMouseToElement(By locator, String elementText){
         WebElement element = getElement(locator, elementText);
-        new Actions(webDriverFacade).moveToElement(element).perform();
+        new Actions(getDriver()).moveToElement(element).perform();
     }
 
     /**
-     * This method is used to download a certain file from the locator link.
+     * This method is used to download a certain file from the locator link and return the downloaded file.
      */
-    public static void downloadFile(By downloadLinkLocator, String downloadDirectory){
-        click(downloadLinkLocator, 10);
-        Utils.waitForFileDownload(downloadDirectory);
+    public static Path downloadFile(By downloadLinkLocator, String downloadDirectory){
+        DownloadWatcher download = DownloadWatcher.expect(downloadDirectory);
+        click(downloadLinkLocator, 0);
+        return download.await(Utils.DOWNLOAD_TIMEOUT_SECONDS);
     }
 
     /**
      * This method is used to download a certain file from the locator link and index.
      */
-    public static void downloadFile(By downloadLinkLocator, int index, String downloadDirectory){
-        click(downloadLinkLocator, index, 10);
-        Utils.waitForFileDownload(downloadDirectory);
+    public static Path downloadFile(By downloadLinkLocator, int index, String downloadDirectory){
+        DownloadWatcher download = DownloadWatcher.expect(downloadDirectory);
+        click(downloadLinkLocator, index, 0);
+        return download.await(Utils.DOWNLOAD_TIMEOUT_SECONDS);
     }
 
     /**
      * This method is used to download a certain file from the locator link and text.
      */
-    public static void downloadFile(By downloadLinkLocator, String elementText, String downloadDirectory){
-        click(downloadLinkLocator, elementText, 10);
-        Utils.waitForFileDownload(downloadDirectory);
+    public static Path downloadFile(By downloadLinkLocator, String elementText, String downloadDirectory){
+        DownloadWatcher download = DownloadWatcher.expect(downloadDirectory);
+        click(downloadLinkLocator, elementText, 0);
+        return download.await(Utils.DOWNLOAD_TIMEOUT_SECONDS);
     }
 
     //endregion
@@ -539,74 +1012,75 @@ public class WebDriverFacade {
      * This method is used to return the options of a select by locator and index.
      */
     public static List<String> getSelectedOptions(By locator){
-        Select select = new Select(getElement(locator));
-        List<String> selectedOptionsText = new ArrayList<>();
-        for(WebElement e: select.getAllSelectedOptions()){selectedOptionsText.add(e.getText());}
-        return selectedOptionsText;
+        return getSelectedOptions(locator, 0);
     }
 
     /**
      * This method is used to return the selected option of a select element by locator and index.
      */
     public static List<String> getSelectedOptions(By locator, int index){
-        Select select = new Select(getElement(locator, index));
-        List<String> selectedOptionsText = new ArrayList<>();
-        for(WebElement e: select.getAllSelectedOptions()){selectedOptionsText.add(e.getText());}
-        return selectedOptionsText;
+        if (index < 0) throw new IllegalArgumentException("Index must be greater than or equals zero");
+        List<ElementSnapshot> elements = getElementsSnapshot(locator);
+        if (index >= elements.size())
+            throw new NoSuchElementException(String.format(
+                    "There couldn't be found any element with the following selector: %s with index %d", locator, index));
+        ElementSnapshot select = elements.get(index);
+        if (!"select".equals(select.getTagName())) throw new UnexpectedTagNameException("select", select.getTagName());
+        return select.getSelectedOptions();
     }
 
     /**
      * This method is used to select the option from locator whose visible text matches the given value
      */
     public static void  selectOptionByVisibleText(By locator, String text, int secondsToWait){
-        Select select = new Select(getElement(locator));
-        select.selectByVisibleText(text);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator);
+        Select select = new Select(element);
+        performAndWait("WebDriverFacade.selectOptionByVisibleText", element, secondsToWait, () -> select.selectByVisibleText(text));
     }
 
     /**
      * This method is used to select the option from locator and index whose visible text matches the given value
      */
     public static void  selectOptionByVisibleText(By locator, int index, String text, int secondsToWait){
-        Select select = new Select(getElement(locator, index));
-        select.selectByVisibleText(text);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator, index);
+        Select select = new Select(element);
+        performAndWait("WebDriverFacade.selectOptionByVisibleText", element, secondsToWait, () -> select.selectByVisibleText(text));
     }
 
     /**
      * This method is used to select the option from locator whose value matches the given value
      */
     public static void  selectOptionByValue(By locator, String value, int secondsToWait){
-        Select select = new Select(getElement(locator));
-        select.selectByValue(value);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator);
+        Select select = new Select(element);
+        performAndWait("WebDriverFacade.selectOptionByValue", element, secondsToWait, () -> select.selectByValue(value));
     }
 
     /**
      * This method is used to select the option from locator and index whose value matches the given value
      */
     public static void  selectOptionByValue(By locator, int index, String value, int secondsToWait){
-        Select select = new Select(getElement(locator, index));
-        select.selectByValue(value);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator, index);
+        Select select = new Select(element);
+        performAndWait("WebDriverFacade.selectOptionByValue", element, secondsToWait, () -> select.selectByValue(value));
     }
 
     /**
      * This method is used to select the option from locator and index whose index matches the given value
      */
     public static void  selectOptionByIndex(By locator, int optionIndex, int secondsToWait){
-        Select select = new Select(getElement(locator));
-        select.selectByIndex(optionIndex);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator);
+        Select select = new Select(element);
+        performAndWait("WebDriverFacade.selectOptionByIndex", element, secondsToWait, () -> select.selectByIndex(optionIndex));
     }
 
     /**
      * This method is used to select the option from locator and index whose index matches the given value
      */
     public static void  selectOptionByIndex(By locator, int index, int optionIndex, int secondsToWait){
-        Select select = new Select(getElement(locator, index));
-        select.selectByIndex(optionIndex);
-        if (secondsToWait > 0) Utils.pauseSeconds(secondsToWait);
+        WebElement element = getElement(locator, index);
+        Select select = new Select(element);
+        performAndWait("WebDriverFacade.selectOptionByIndex", element, secondsToWait, () -> select.selectByIndex(optionIndex));
     }
 
     //endregion
@@ -618,7 +1092,7 @@ public class WebDriverFacade {
      */
     public static boolean isAlertVisible(){
         try{
-            webDriverFacade.switchTo().alert();
+            getDriver().switchTo().alert();
             return true;
         }catch (NoAlertPresentException e){
             return false;
@@ -629,35 +1103,35 @@ public class WebDriverFacade {
      * This method is used to switch to alert.
      */
     public static void switchToAlert(){
-        webDriverFacade.switchTo().alert();
+        getDriver().switchTo().alert();
     }
 
     /**
      * This method is used to get alert text.
      */
     public static String getAlertText(){
-        return webDriverFacade.switchTo().alert().getText();
+        return getDriver().switchTo().alert().getText();
     }
 
     /**
      * This method is used to accept an alert.
      */
     public static void acceptAlert(){
-        webDriverFacade.switchTo().alert().accept();
+        getDriver().switchTo().alert().accept();
     }
 
     /**
      * This method is used to dismiss an alert.
      */
     public static void dismissAlert(){
-        webDriverFacade.switchTo().alert().dismiss();
+        getDriver().switchTo().alert().dismiss();
     }
 
     /**
      * This method is used to send keys to an alert.
      */
     public static void sendKeysToAlert(String text){
-        webDriverFacade.switchTo().alert().sendKeys(text);
+        getDriver().switchTo().alert().sendKeys(text);
     }
 
     //endregion
@@ -665,60 +1139,44 @@ public class WebDriverFacade {
     //region Driver Boolean Methods
 
     /**
-     * This method is used to check if an element is enable.
+     * This method is used to check if an element is present, without waiting for it.
+     */
+    public static boolean isElementPresent(By locator){
+        return ElementProbe.probe(getDriver(), locator).isPresent();
+    }
+
+    /**
+     * This method is used to check if an element is enable. The check takes a single call and doesn't wait for
+     * the element, see ElementProbe.
      */
     public static boolean isElementEnabled(By locator){
-        try
-        {
-            return getElement(locator).isEnabled();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        ElementProbe.State state = ElementProbe.probe(getDriver(), locator);
+        return state.isPresent() && state.isEnabled();
     }
 
     /**
      * This method is used to check if an element with certain index is enable.
      */
     public static boolean isElementEnabled(By locator, int index){
-        try
-        {
-            return getElement(locator, index).isEnabled();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        ElementProbe.State state = ElementProbe.probe(getDriver(), locator, index);
+        return state.isPresent() && state.isEnabled();
     }
 
     /**
      * This method is used to check if an element with certain text is enable.
      */
     public static boolean isElementEnabled(By locator, String elementText){
-        try
-        {
-            return getElement(locator, elementText).isEnabled();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        ElementProbe.State state = ElementProbe.probe(getDriver(), locator, elementText);
+        return state.isPresent() && state.isEnabled();
     }
 
     /**
-     * This method is used to check if an element is visible.
+     * This method is used to check if an element is visible. The check takes a single call and doesn't wait for
+     * the element, see ElementProbe.
      */
     public static boolean isElementVisible(By locator)
     {
-        try
-        {
-            return getElement(locator).isDisplayed();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        return ElementProbe.probe(getDriver(), locator).isDisplayed();
     }
 
     /**
@@ -726,14 +1184,7 @@ public class WebDriverFacade {
      */
     public static boolean isElementVisible(By locator, int index)
     {
-        try
-        {
-            return getElement(locator, index).isDisplayed();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        return ElementProbe.probe(getDriver(), locator, index).isDisplayed();
     }
 
     /**
@@ -741,14 +1192,7 @@ public class WebDriverFacade {
      */
     public static boolean isElementVisible(By locator, String text)
     {
-        try
-        {
-            return getElement(locator, text).isDisplayed();
-        }
-        catch (NoSuchElementException | IllegalArgumentException | IllegalStateException | StaleElementReferenceException e)
-        {
-            return false;
-        }
+        return ElementProbe.probe(getDriver(), locator, text).isDisplayed();
     }
 
     /**
@@ -761,9 +1205,8 @@ public class WebDriverFacade {
      */
     public static boolean isElementOnTheUserScreen(By locator)
     {
-        int  yAxisElementLocation = getElementByAxis(locator, "y");
-        int windowsHeight = webDriverFacade.manage().window().getSize().height;
-        return isElementVisible(locator) && windowsHeight - yAxisElementLocation >= 0;
+        ElementGeometry geometry = ElementGeometry.capture(getDriver(), locator);
+        return geometry != null && geometry.isInViewport();
     }
 
     /**
@@ -802,8 +1245,8 @@ public class WebDriverFacade {
      */
     public static boolean areElementsChecked(By locator)
     {
-        List<WebElement> elements = getElements(locator);
-        for(WebElement e: elements){
+        List<ElementSnapshot> elements = getElementsSnapshot(locator);
+        for(ElementSnapshot e: elements){
             if(!e.isSelected()){
                 return false;
             }
@@ -815,42 +1258,103 @@ public class WebDriverFacade {
 
     //region Driver Switch Methods
 
+    /**
+     * This method is used to return the registry of the windows opened on the current driver session.
+     */
+    public static WindowRegistry getWindowRegistry(){
+        return WindowRegistry.forDriver(getDriver());
+    }
+
     /**
      * This method is used to switch to the last opened window.
      */
     public static void switchToLastOpenedWindow()
     {
-        List<String> windowsHandles = (List<String>) webDriverFacade.getWindowHandles();
-        int lastWindowHandle = windowsHandles.size() - 1;
-        webDriverFacade.switchTo().window(windowsHandles.get(lastWindowHandle));
+        getElementCache().invalidate();
+        WindowRegistry registry = getWindowRegistry();
+        registry.refresh(getDriver());
+        registry.switchToPosition(getDriver(), -1);
     }
 
     /**
      * This method is used to switch to the main window.
      */
     public static void switchToMainWindow() {
-        List<String> windowsHandles = (List<String>) webDriverFacade.getWindowHandles();
-        webDriverFacade.switchTo().window(windowsHandles.get(0));
+        getElementCache().invalidate();
+        WindowRegistry registry = getWindowRegistry();
+        registry.refresh(getDriver());
+        registry.switchToPosition(getDriver(), 0);
     }
 
     /**
-     * This method is used to switch to a window base on his title.
+     * This method is used to switch to a window base on his title, waiting up to the given seconds until a window
+     * with that title is open.
      */
     public static String SwitchToWindowByTitle(String title, int waitPageSeconds) throws InterruptedException {
-        if (waitPageSeconds > 0) Utils.pauseSeconds(waitPageSeconds);
-        for (String s: webDriverFacade.getWindowHandles())
-        {
-            webDriverFacade.switchTo().window(s);
-            if (webDriverFacade.getTitle().contains(title))
-                return webDriverFacade.getWindowHandle();
-        }
-        throw new IllegalArgumentException(String.format("There couldn't be found a windows with title: %s", title));
+        getElementCache().invalidate();
+        String handle = waitForWindow(waitPageSeconds, registry -> registry.switchToTitle(getDriver(), title));
+        if (handle == null)
+            throw new IllegalArgumentException(String.format("There couldn't be found a windows with title: %s", title));
+        return handle;
+    }
+
+    /**
+     * This method is used to switch to a window whose URL contains the given text, waiting up to the given seconds
+     * until it is open.
+     */
+    public static String switchToWindowByUrl(String url, int waitPageSeconds){
+        getElementCache().invalidate();
+        String handle = waitForWindow(waitPageSeconds, registry -> registry.switchToUrl(getDriver(), url));
+        if (handle == null)
+            throw new IllegalArgumentException(String.format("There couldn't be found a windows with URL: %s", url));
+        return handle;
+    }
+
+    /**
+     * This method is used to run the action that opens a window, like a click on a link, to wait up to the given
+     * seconds until the new window is open and to switch to it. The open windows are read before the action, so
+     * the new one is told apart from the ones already open.
+     */
+    public static String switchToNewWindow(Runnable openWindow, int waitPageSeconds){
+        Set<String> handlesBefore = new HashSet<>(getDriver().getWindowHandles());
+        openWindow.run();
+        return switchToNewWindow(handlesBefore, waitPageSeconds);
+    }
+
+    /**
+     * This method is used to wait up to the given seconds until a window that is not one of the given handles is
+     * open and to switch to it. The handles must be read before the window is opened.
+     */
+    public static String switchToNewWindow(Set<String> handlesBefore, int waitPageSeconds){
+        getElementCache().invalidate();
+        String[] handle = new String[1];
+        waitUntil(d -> {
+            for (String open: d.getWindowHandles()) if (!handlesBefore.contains(open)) handle[0] = open;
+            return handle[0];
+        }, Math.max(0, waitPageSeconds));
+        if (handle[0] == null)
+            throw new NoSuchWindowException(String.format("There wasn't any new window in %d seconds", waitPageSeconds));
+        WindowRegistry registry = getWindowRegistry();
+        registry.refresh(getDriver());
+        registry.switchToHandle(getDriver(), handle[0]);
+        return handle[0];
+    }
+
+    private static String waitForWindow(int secondsToWait, Function<WindowRegistry, String> switchToWindow){
+        WindowRegistry registry = getWindowRegistry();
+        String[] handle = new String[1];
+        waitUntil(d -> handle[0] = switchToWindow.apply(registry), Math.max(0, secondsToWait));
+        return handle[0];
     }
 
     /**
      * This method is used to switch to a frame.
      */
-    public static void switchToFrame(By locator){ webDriverFacade.switchTo().frame(getElement(locator));}
+    public static void switchToFrame(By locator){
+        WebElement frame = getElement(locator);
+        getElementCache().invalidate();
+        getDriver().switchTo().frame(frame);
+    }
 
     //endregion
 }
\ No newline at end of file
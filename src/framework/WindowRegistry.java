@@ -0,0 +1,162 @@
+package framework;
+
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * This class is used to keep the windows of a driver session in the order they were opened, with the last title
+ * and URL read from each one, so switching to a window doesn't need to visit every other window.
+ */
+public class WindowRegistry {
+
+    private static final Map<WebDriver, WindowRegistry> registries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+    private String current;
+
+    /**
+     * This method is used to return the window registry of a driver session.
+     */
+    public static WindowRegistry forDriver(WebDriver driver){
+        return registries.computeIfAbsent(driver, d -> new WindowRegistry());
+    }
+
+    //region Registry Updates
+
+    /**
+     * This method is used to read the open windows with a single call, adding the new ones at the end and removing
+     * the closed ones. Returns the handles of the new windows, oldest first.
+     */
+    public synchronized List<String> refresh(WebDriver driver){
+        Set<String> handles = driver.getWindowHandles();
+        windows.keySet().retainAll(handles);
+        List<String> newHandles = new ArrayList<>();
+        for (String handle: handles) {
+            if (!windows.containsKey(handle)) {
+                windows.put(handle, new Window());
+                newHandles.add(handle);
+            }
+        }
+        return newHandles;
+    }
+
+    /**
+     * This method is used to forget the title and URL of the current window, after it navigated to another page.
+     * When the current window is not known yet every window is forgotten.
+     */
+    public synchronized void markCurrentChanged(){
+        Window window = current == null ? null : windows.get(current);
+        if (window != null) window.known = false;
+        else for (Window other: windows.values()) other.known = false;
+    }
+
+    /**
+     * This method is used to remove a closed window.
+     */
+    public synchronized void remove(String handle){
+        windows.remove(handle);
+    }
+
+    /**
+     * This method is used to forget every window, after the session was reset.
+     */
+    public synchronized void clear(){
+        windows.clear();
+        current = null;
+    }
+
+    //endregion
+
+    //region Window Switching
+
+    /**
+     * This method is used to switch to a window by its position in opening order, negative positions count from
+     * the last opened one.
+     */
+    public synchronized String switchToPosition(WebDriver driver, int position){
+        if (windows.isEmpty()) refresh(driver);
+        List<String> handles = new ArrayList<>(windows.keySet());
+        int index = position < 0 ? handles.size() + position : position;
+        if (index < 0 || index >= handles.size())
+            throw new NoSuchWindowException(String.format("There isn't any window at position %d", position));
+        switchTo(driver, handles.get(index));
+        return handles.get(index);
+    }
+
+    /**
+     * This method is used to switch to the window with the given handle.
+     */
+    public synchronized void switchToHandle(WebDriver driver, String handle){
+        switchTo(driver, handle);
+    }
+
+    /**
+     * This method is used to switch to the first window whose title contains the given text, or return null.
+     */
+    public String switchToTitle(WebDriver driver, String title){
+        return switchToMatch(driver, window -> window.title.contains(title));
+    }
+
+    /**
+     * This method is used to switch to the first window whose URL contains the given text, or return null.
+     */
+    public String switchToUrl(WebDriver driver, String url){
+        return switchToMatch(driver, window -> window.url.contains(url));
+    }
+
+    /**
+     * This method is used to switch to the first window that matches. Windows already read are matched without
+     * visiting them and checked once the switch is done; the other windows are only visited when none of those
+     * matches.
+     */
+    private synchronized String switchToMatch(WebDriver driver, Predicate<Window> match){
+        refresh(driver);
+        Set<String> visited = new HashSet<>();
+        for (Map.Entry<String, Window> entry: windows.entrySet()) {
+            Window window = entry.getValue();
+            if (!window.known || !match.test(window)) continue;
+            visited.add(entry.getKey());
+            switchTo(driver, entry.getKey());
+            window.read(driver);
+            if (match.test(window)) return entry.getKey();
+        }
+        for (boolean knownWindows: new boolean[]{false, true}) {
+            for (Map.Entry<String, Window> entry: windows.entrySet()) {
+                Window window = entry.getValue();
+                if (window.known != knownWindows || visited.contains(entry.getKey())) continue;
+                visited.add(entry.getKey());
+                switchTo(driver, entry.getKey());
+                window.read(driver);
+                if (match.test(window)) return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private void switchTo(WebDriver driver, String handle){
+        driver.switchTo().window(handle);
+        current = handle;
+    }
+
+    public synchronized int size(){
+        return windows.size();
+    }
+
+    //endregion
+
+    private static class Window {
+
+        private boolean known;
+        private String title;
+        private String url;
+
+        private void read(WebDriver driver){
+            title = driver.getTitle();
+            url = driver.getCurrentUrl();
+            known = true;
+        }
+    }
+}